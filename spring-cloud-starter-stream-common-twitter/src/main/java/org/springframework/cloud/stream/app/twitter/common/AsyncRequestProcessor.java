@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.util.Assert;
+
+/**
+ * Builds the processor flows calling the Twitter REST APIs.
+ *
+ * By default the request function is applied on the input thread, one message at a time. In async mode the requests
+ * run on the Twitter request executor, so up to concurrency requests are in flight at once. When the limit is
+ * reached the input thread waits for a request to complete, so the unprocessed messages stay in the binder.
+ *
+ * In ordered mode the responses are sent in the order of the input messages, the responses completed ahead of an
+ * earlier request are held back until it completes. Otherwise each response is sent as soon as it is ready.
+ *
+ * The input message is acknowledged once its request is submitted, so in async mode the failed requests and the
+ * responses that could not be sent are published to the error channel as an ErrorMessage, carrying a
+ * MessagingException with the failed message.
+ *
+ * @author Christian Tzolov
+ */
+public class AsyncRequestProcessor {
+
+	private static final Log logger = LogFactory.getLog(AsyncRequestProcessor.class);
+
+	private final TwitterConnectionProperties.Async async;
+
+	private final Executor executor;
+
+	private final MessageChannel errorChannel;
+
+	/**
+	 * @param async Async mode settings.
+	 * @param executor Executor of the asynchronous requests. Not used, hence can be null, unless async is enabled.
+	 * @param errorChannel Channel of the failed asynchronous requests. Not used, hence can be null, unless async is
+	 * enabled.
+	 */
+	public AsyncRequestProcessor(TwitterConnectionProperties.Async async, Executor executor,
+			MessageChannel errorChannel) {
+		Assert.isTrue(async.getConcurrency() > 0, "The async concurrency must be positive but was: "
+				+ async.getConcurrency());
+		Assert.isTrue(!async.isEnabled() || (executor != null && errorChannel != null),
+				"The async mode requires an executor and an error channel");
+		this.async = async;
+		this.executor = executor;
+		this.errorChannel = errorChannel;
+	}
+
+	/**
+	 * @param input Processor input channel.
+	 * @param request Function converting the input message into the Twitter API response message.
+	 * @param output Processor output channel.
+	 * @return the processor flow.
+	 */
+	public IntegrationFlow flow(MessageChannel input, Function<Message<?>, Message<byte[]>> request,
+			MessageChannel output) {
+
+		if (!this.async.isEnabled()) {
+			return IntegrationFlows
+					.from(input)
+					.transform(Message.class, request::apply)
+					.channel(output)
+					.get();
+		}
+
+		return IntegrationFlows
+				.from(input)
+				.handle(this.asyncHandler(request, output))
+				.get();
+	}
+
+	/**
+	 * @return handler submitting every message to the Twitter request executor and sending the response to the
+	 * output channel once completed.
+	 */
+	MessageHandler asyncHandler(Function<Message<?>, Message<byte[]>> request, MessageChannel output) {
+		return new InFlightRequests(request, output)::submit;
+	}
+
+	private final class InFlightRequests {
+
+		private final Function<Message<?>, Message<byte[]>> request;
+
+		private final MessageChannel output;
+
+		private final Semaphore permits = new Semaphore(async.getConcurrency());
+
+		private final Deque<CompletableFuture<Message<byte[]>>> pending = new ArrayDeque<>();
+
+		private InFlightRequests(Function<Message<?>, Message<byte[]>> request, MessageChannel output) {
+			this.request = request;
+			this.output = output;
+		}
+
+		private void submit(Message<?> message) {
+			try {
+				this.permits.acquire();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for an in flight request to complete", e);
+			}
+
+			CompletableFuture<Message<byte[]>> response;
+			try {
+				response = CompletableFuture.supplyAsync(() -> {
+					try {
+						return this.request.apply(message);
+					}
+					catch (RuntimeException e) {
+						throw new MessageHandlingException(message, "Twitter request failed", e);
+					}
+				}, executor);
+			}
+			catch (RuntimeException e) {
+				this.permits.release();
+				throw e;
+			}
+
+			if (async.isOrdered()) {
+				synchronized (this.pending) {
+					this.pending.add(response);
+				}
+				response.whenComplete((result, error) -> this.sendCompleted());
+			}
+			else {
+				response.whenComplete(this::send);
+			}
+		}
+
+		private void sendCompleted() {
+			synchronized (this.pending) {
+				while (!this.pending.isEmpty() && this.pending.peek().isDone()) {
+					CompletableFuture<Message<byte[]>> response = this.pending.poll();
+					try {
+						this.send(response.join(), null);
+					}
+					catch (RuntimeException e) {
+						this.send(null, e);
+					}
+				}
+			}
+		}
+
+		private void send(Message<byte[]> result, Throwable error) {
+			try {
+				if (error != null) {
+					this.sendError((error instanceof CompletionException) ? error.getCause() : error);
+				}
+				else if (result != null) {
+					this.sendResponse(result);
+				}
+			}
+			finally {
+				this.permits.release();
+			}
+		}
+
+		private void sendResponse(Message<byte[]> result) {
+			try {
+				this.output.send(result);
+			}
+			catch (RuntimeException e) {
+				this.sendError(new MessageDeliveryException(result, "Failed to send the Twitter response", e));
+			}
+		}
+
+		private void sendError(Throwable error) {
+			Message<?> failedMessage = (error instanceof MessagingException) ?
+					((MessagingException) error).getFailedMessage() : null;
+			try {
+				errorChannel.send((failedMessage != null) ? new ErrorMessage(error, failedMessage) :
+						new ErrorMessage(error));
+			}
+			catch (RuntimeException e) {
+				logger.error("Failed to send the error message of the Twitter request", error);
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import twitter4j.RateLimitStatus;
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+import twitter4j.TwitterResponse;
+
+import org.springframework.util.Assert;
+
+/**
+ * Spreads the Twitter API calls over a pool of clients, each authenticated with a different credentials set.
+ *
+ * Every call goes to the client with the most remaining quota for the called endpoint. Clients that have not called
+ * the endpoint yet, or whose rate limit window has been reset since, are considered to have full quota. Ties are
+ * resolved in round-robin order.
+ *
+ * A client whose call fails with 401 (Unauthorized) or 429 (Too Many Requests) is isolated, for the isolation time or
+ * until the rate limit window reset respectively, and the call is retried with the next client. The isolated clients
+ * are used only when all the clients are isolated.
+ *
+ * @author Christian Tzolov
+ */
+public class CredentialPool {
+
+	private static final Log logger = LogFactory.getLog(CredentialPool.class);
+
+	private static final int UNAUTHORIZED = 401;
+
+	private final List<Member> members = new ArrayList<>();
+
+	private final long isolationTime;
+
+	private final AtomicInteger roundRobin = new AtomicInteger();
+
+	public CredentialPool(List<Twitter> clients, long isolationTime) {
+		Assert.notEmpty(clients, "The credential pool requires at least one Twitter client");
+		for (int i = 0; i < clients.size(); i++) {
+			this.members.add(new Member(i, clients.get(i)));
+		}
+		this.isolationTime = isolationTime;
+	}
+
+	/**
+	 * @return a Twitter client that dispatches every call to one of the pool members.
+	 */
+	public Twitter proxy() {
+		return (Twitter) Proxy.newProxyInstance(Twitter.class.getClassLoader(), new Class<?>[] { Twitter.class },
+				(proxy, method, args) -> {
+					String endpoint = method.getName();
+					Set<Member> tried = new HashSet<>();
+					while (true) {
+						Member member = this.select(endpoint, tried);
+						try {
+							Object response = method.invoke(member.twitter, args);
+							if (response instanceof TwitterResponse) {
+								member.update(endpoint, ((TwitterResponse) response).getRateLimitStatus());
+							}
+							return response;
+						}
+						catch (InvocationTargetException e) {
+							Throwable cause = e.getCause();
+							tried.add(member);
+							if (!(cause instanceof TwitterException)
+									|| !this.isolate(member, endpoint, (TwitterException) cause)
+									|| tried.size() == this.members.size()) {
+								throw cause;
+							}
+						}
+					}
+				});
+	}
+
+	/**
+	 * @param endpoint Called endpoint.
+	 * @param excluded Members not to be selected.
+	 * @return the not isolated member with the most remaining endpoint quota or, if all are isolated, the member
+	 * released first.
+	 */
+	Member select(String endpoint, Set<Member> excluded) {
+		long now = System.currentTimeMillis();
+		int start = Math.floorMod(this.roundRobin.getAndIncrement(), this.members.size());
+
+		Member selected = null;
+		long selectedRemaining = -1;
+		Member firstReleased = null;
+
+		for (int i = 0; i < this.members.size(); i++) {
+			Member member = this.members.get((start + i) % this.members.size());
+			if (excluded.contains(member)) {
+				continue;
+			}
+			if (member.isolatedUntil > now) {
+				if (firstReleased == null || member.isolatedUntil < firstReleased.isolatedUntil) {
+					firstReleased = member;
+				}
+				continue;
+			}
+			long remaining = member.remaining(endpoint, now);
+			if (remaining > selectedRemaining) {
+				selected = member;
+				selectedRemaining = remaining;
+			}
+		}
+
+		return (selected != null) ? selected : firstReleased;
+	}
+
+	private boolean isolate(Member member, String endpoint, TwitterException e) {
+		long now = System.currentTimeMillis();
+		if (e.exceededRateLimitation()) {
+			member.update(endpoint, e.getRateLimitStatus());
+			RateLimitStatus status = e.getRateLimitStatus();
+			member.isolatedUntil = (status != null) ? status.getResetTimeInSeconds() * 1000L : now + this.isolationTime;
+		}
+		else if (e.getStatusCode() == UNAUTHORIZED) {
+			member.isolatedUntil = now + this.isolationTime;
+		}
+		else {
+			return false;
+		}
+		logger.warn(String.format("Credentials #%s isolated for %s ms: %s", member.index,
+				Math.max(0, member.isolatedUntil - now), e.getMessage()));
+		return true;
+	}
+
+	public int size() {
+		return this.members.size();
+	}
+
+	static final class Member {
+
+		private final int index;
+
+		private final Twitter twitter;
+
+		private final Map<String, RateLimitStatus> statuses = new ConcurrentHashMap<>();
+
+		private volatile long isolatedUntil;
+
+		private Member(int index, Twitter twitter) {
+			this.index = index;
+			this.twitter = twitter;
+		}
+
+		private void update(String endpoint, RateLimitStatus status) {
+			if (status != null) {
+				this.statuses.put(endpoint, status);
+			}
+		}
+
+		private long remaining(String endpoint, long now) {
+			RateLimitStatus status = this.statuses.get(endpoint);
+			if (status == null || status.getResetTimeInSeconds() * 1000L <= now) {
+				return Long.MAX_VALUE;
+			}
+			return status.getRemaining();
+		}
+
+		Twitter getTwitter() {
+			return this.twitter;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import twitter4j.Twitter;
+
+import org.springframework.util.Assert;
+
+/**
+ * Limits the number of concurrent Twitter API calls per endpoint. The endpoints are identified by the Twitter client
+ * method names, e.g. lookupUsers or search. Calls to endpoints without a limit are not restricted.
+ *
+ * The calls above the limit wait for a running call to complete. Meant for the asynchronous mode, where many requests
+ * can be in flight at once, in particular on virtual threads.
+ *
+ * @author Christian Tzolov
+ */
+public class EndpointConcurrencyLimiter {
+
+	private final Map<String, Semaphore> permits = new HashMap<>();
+
+	public EndpointConcurrencyLimiter(Map<String, Integer> endpointConcurrency) {
+		endpointConcurrency.forEach((endpoint, concurrency) -> {
+			Assert.isTrue(concurrency > 0, "The concurrency of " + endpoint + " must be positive but was: "
+					+ concurrency);
+			this.permits.put(endpoint, new Semaphore(concurrency));
+		});
+	}
+
+	/**
+	 * Wraps the Twitter client so that the calls of the limited endpoints are throttled.
+	 */
+	public Twitter proxy(Twitter twitter) {
+		if (this.permits.isEmpty()) {
+			return twitter;
+		}
+		return (Twitter) Proxy.newProxyInstance(Twitter.class.getClassLoader(), new Class<?>[] { Twitter.class },
+				(proxy, method, args) -> {
+					Semaphore endpointPermits = this.permits.get(method.getName());
+					if (endpointPermits != null) {
+						try {
+							endpointPermits.acquire();
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new IllegalStateException("Interrupted while waiting for a " + method.getName()
+									+ " call to complete", e);
+						}
+					}
+					try {
+						return method.invoke(twitter, args);
+					}
+					catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					finally {
+						if (endpointPermits != null) {
+							endpointPermits.release();
+						}
+					}
+				});
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.messaging.Message;
+
+/**
+ * Evaluates the SpEL expression properties against the incoming messages.
+ *
+ * The expressions bound from the application properties are interpreted. Here every SpEL expression is re-parsed,
+ * once, with a compiler enabled parser (MIXED mode), so after a warm-up the evaluation runs as generated byte code.
+ * Expressions that can not be compiled keep being interpreted. The compiled byte code is specific to the root object
+ * class it was generated for, so the expressions are cached per root class (e.g. a Message and a MessageBinding root
+ * do not share a compiled expression). All evaluations share a single evaluation context, instead of a context per
+ * expression. The context resolves Map keys as properties, which the MessageBinding json tree relies on
+ * (e.g. json.user.screen_name).
+ *
+ * @author Christian Tzolov
+ */
+public class ExpressionEvaluator {
+
+	private final SpelExpressionParser parser;
+
+	private final StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+
+	private final Map<Class<?>, Map<String, Expression>> compiledExpressions = new ConcurrentHashMap<>();
+
+	private final ObjectMapper mapper;
+
+	public ExpressionEvaluator() {
+		this(new ObjectMapper());
+	}
+
+	public ExpressionEvaluator(ObjectMapper mapper) {
+		this.mapper = mapper;
+		this.parser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.MIXED, ExpressionEvaluator.class.getClassLoader()));
+		this.evaluationContext.addPropertyAccessor(new MapAccessor());
+	}
+
+	/**
+	 * @param message Message to bind to a request.
+	 * @return a binding that evaluates all expression properties against the same, once prepared, message root.
+	 */
+	public MessageBinding bind(Message<?> message) {
+		return new MessageBinding(this, this.mapper, message);
+	}
+
+	/**
+	 * @param expression Expression to evaluate.
+	 * @param rootObject Evaluation root object, usually the message.
+	 * @param type Expected result type.
+	 * @return the expression evaluation result.
+	 */
+	public <T> T getValue(Expression expression, Object rootObject, Class<T> type) {
+		return this.compiled(expression, rootObject).getValue(this.evaluationContext, rootObject, type);
+	}
+
+	Expression compiled(Expression expression, Object rootObject) {
+		if (!(expression instanceof SpelExpression)) {
+			return expression;
+		}
+		Class<?> rootClass = (rootObject != null) ? rootObject.getClass() : Void.class;
+		return this.compiledExpressions.computeIfAbsent(rootClass, c -> new ConcurrentHashMap<>())
+				.computeIfAbsent(expression.getExpressionString(), this.parser::parseExpression);
+	}
+}
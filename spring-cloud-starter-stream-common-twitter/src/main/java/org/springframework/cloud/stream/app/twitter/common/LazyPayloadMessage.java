@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.cloud.stream.config.BindingProperties;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Text view over a message with byte[] payload. The payload is decoded only when first read, for example when a SpEL
+ * expression actually accesses it, and the decoded String is cached for the subsequent reads.
+ *
+ * The payload is decoded with the charset of the content type, or UTF-8 if not specified. The content types are
+ * parsed once and the outcome is cached.
+ *
+ * @author Christian Tzolov
+ */
+public final class LazyPayloadMessage implements Message<Object> {
+
+	private static final Map<String, Optional<Charset>> textCharsets = new ConcurrentReferenceHashMap<>();
+
+	private final Message<byte[]> message;
+
+	private final Charset charset;
+
+	private volatile String payload;
+
+	private LazyPayloadMessage(Message<byte[]> message, Charset charset) {
+		this.message = message;
+		this.charset = charset;
+	}
+
+	/**
+	 * @param message Message to convert.
+	 * @return a lazily decoded text view of the message if it has a byte[] payload with text, json or x-spring-tuple
+	 * content type. The message as is otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Message<?> stringify(Message<?> message) {
+		if (message.getPayload() instanceof byte[]) {
+			Optional<Charset> charset = textCharset(message);
+			if (charset.isPresent()) {
+				return new LazyPayloadMessage((Message<byte[]>) message, charset.get());
+			}
+		}
+		return message;
+	}
+
+	/**
+	 * @param message Message with a text payload.
+	 * @return the charset of the message content type, or UTF-8 if not specified.
+	 */
+	static Charset charset(Message<?> message) {
+		return textCharset(message).orElse(StandardCharsets.UTF_8);
+	}
+
+	private static Optional<Charset> textCharset(Message<?> message) {
+		Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+		return textCharsets.computeIfAbsent(
+				(contentType != null) ? contentType.toString() : BindingProperties.DEFAULT_CONTENT_TYPE.toString(),
+				LazyPayloadMessage::textCharset);
+	}
+
+	private static Optional<Charset> textCharset(String contentType) {
+		if (contentType.contains("text") || contentType.contains("json") || contentType.contains("x-spring-tuple")) {
+			MimeType mimeType = MimeTypeUtils.parseMimeType(contentType);
+			return Optional.of((mimeType.getCharset() != null) ? mimeType.getCharset() : StandardCharsets.UTF_8);
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public Object getPayload() {
+		String payload = this.payload;
+		if (payload == null) {
+			payload = new String(this.message.getPayload(), this.charset);
+			this.payload = payload;
+		}
+		return payload;
+	}
+
+	@Override
+	public MessageHeaders getHeaders() {
+		return this.message.getHeaders();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " [payload=" + getPayload() + ", headers=" + getHeaders() + "]";
+	}
+}
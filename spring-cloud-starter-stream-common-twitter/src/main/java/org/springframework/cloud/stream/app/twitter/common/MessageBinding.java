@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.expression.Expression;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * Binds a single message to the fields of a request object (e.g. Query or StatusUpdate). All the expression
+ * properties of the request are evaluated against the same root object, prepared once per message.
+ *
+ * Next to the payload and headers, the root exposes the payload as a parsed JSON tree (Maps and Lists) under the
+ * json property, for example "json.user.screen_name" or "json['lang']". The payload is parsed on the first access,
+ * at most once per message, no matter how many expressions refer to it. A byte[] payload is decoded with the charset
+ * of the message content type, UTF-8 by default.
+ *
+ * @author Christian Tzolov
+ */
+public class MessageBinding {
+
+	private final ExpressionEvaluator expressionEvaluator;
+
+	private final Root root;
+
+	MessageBinding(ExpressionEvaluator expressionEvaluator, ObjectMapper mapper, Message<?> message) {
+		this.expressionEvaluator = expressionEvaluator;
+		this.root = new Root(mapper, message);
+	}
+
+	/**
+	 * @param expression Expression to evaluate.
+	 * @param type Expected result type.
+	 * @return the expression evaluation result.
+	 */
+	public <T> T getValue(Expression expression, Class<T> type) {
+		return this.expressionEvaluator.getValue(expression, this.root, type);
+	}
+
+	/**
+	 * Evaluates an optional expression property and passes the result to the target setter.
+	 * @param expression Expression to evaluate. Ignored if null.
+	 * @param type Expected result type.
+	 * @param target Setter of the bound request field.
+	 */
+	public <T> void bind(Expression expression, Class<T> type, Consumer<T> target) {
+		if (expression != null) {
+			target.accept(this.getValue(expression, type));
+		}
+	}
+
+	/**
+	 * Expression evaluation root. Mirrors the message properties, so the existing payload and headers expressions
+	 * keep working.
+	 */
+	public static final class Root {
+
+		private static final Log logger = LogFactory.getLog(MessageBinding.class);
+
+		private static final Object NOT_JSON = new Object();
+
+		private final ObjectMapper mapper;
+
+		private final Message<?> message;
+
+		private Object json;
+
+		Root(ObjectMapper mapper, Message<?> message) {
+			this.mapper = mapper;
+			this.message = message;
+		}
+
+		public Object getPayload() {
+			return this.message.getPayload();
+		}
+
+		public MessageHeaders getHeaders() {
+			return this.message.getHeaders();
+		}
+
+		/**
+		 * @return the JSON payload parsed into Maps and Lists or null if the payload is not JSON.
+		 */
+		public Object getJson() {
+			if (this.json == null) {
+				this.json = this.parse(this.message);
+			}
+			return this.json != NOT_JSON ? this.json : null;
+		}
+
+		private Object parse(Message<?> message) {
+			Object payload = message.getPayload();
+			String text = (payload instanceof byte[]) ?
+					new String((byte[]) payload, LazyPayloadMessage.charset(message)) :
+					(payload instanceof String) ? (String) payload : null;
+
+			String trimmed = (text != null) ? text.trim() : "";
+			if (!trimmed.startsWith("{") && !trimmed.startsWith("[")) {
+				return NOT_JSON;
+			}
+
+			try {
+				return this.mapper.readValue(trimmed, Object.class);
+			}
+			catch (IOException e) {
+				logger.debug("Payload is not valid JSON", e);
+				return NOT_JSON;
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Growable, unsynchronized byte buffer reused by the payload serializers. The payloads are serialized into the buffer
+ * and only the final, right-sized byte[] is allocated per message.
+ *
+ * Usage:
+ * <pre>
+ * PayloadBuffer buffer = PayloadBuffer.acquire();
+ * try {
+ *     mapper.writeValue(buffer, value);
+ *     return buffer.toByteArray();
+ * }
+ * finally {
+ *     buffer.release();
+ * }
+ * </pre>
+ *
+ * The buffers are pooled across the threads, rather than per thread, so that they are reused by the short lived
+ * virtual threads too. Every acquire gets a buffer of its own, the most recently released one if any. Up to
+ * POOL_SIZE released buffers are retained, the rest is left to the garbage collector. Buffers grown beyond
+ * MAX_RETAINED_SIZE are shrunk on release, so a single large payload doesn't pin memory.
+ *
+ * @author Christian Tzolov
+ */
+public final class PayloadBuffer extends OutputStream {
+
+	private static final int INITIAL_SIZE = 8 * 1024;
+
+	private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+	private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+	private static final BlockingDeque<PayloadBuffer> pool = new LinkedBlockingDeque<>(POOL_SIZE);
+
+	private byte[] buffer = new byte[INITIAL_SIZE];
+
+	private int count;
+
+	private boolean inUse;
+
+	private PayloadBuffer() {
+	}
+
+	/**
+	 * @return an empty buffer, taken from the pool if available.
+	 */
+	public static PayloadBuffer acquire() {
+		PayloadBuffer payloadBuffer = pool.pollFirst();
+		if (payloadBuffer == null) {
+			payloadBuffer = new PayloadBuffer();
+		}
+		payloadBuffer.inUse = true;
+		payloadBuffer.count = 0;
+		return payloadBuffer;
+	}
+
+	/**
+	 * Returns the buffer to the pool. The buffer must not be used after release.
+	 */
+	public void release() {
+		if (!this.inUse) {
+			return;
+		}
+		this.inUse = false;
+		if (this.buffer.length > MAX_RETAINED_SIZE) {
+			this.buffer = new byte[INITIAL_SIZE];
+		}
+		pool.offerFirst(this);
+	}
+
+	@Override
+	public void write(int b) {
+		this.ensureCapacity(this.count + 1);
+		this.buffer[this.count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		this.ensureCapacity(this.count + length);
+		System.arraycopy(bytes, offset, this.buffer, this.count, length);
+		this.count += length;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(capacity, this.buffer.length << 1));
+		}
+	}
+
+	/**
+	 * @return right-sized copy of the buffer content.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(this.buffer, this.count);
+	}
+
+	public int size() {
+		return this.count;
+	}
+
+	int capacity() {
+		return this.buffer.length;
+	}
+
+	/**
+	 * No-op, so that the serializers closing their target stream don't affect the buffer. Use release instead.
+	 */
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Encodes the Twitter API responses into the output message payloads. The objects are written straight into the
+ * thread's pooled {@link PayloadBuffer}, without an intermediate String.
+ *
+ * - json : UTF-8 JSON text (application/json).
+ * - smile : Jackson's binary JSON (application/x-jackson-smile).
+ * - cbor : Concise Binary Object Representation, RFC 7049 (application/cbor).
+ *
+ * The binary encodings keep the JSON data model, so the consumers can decode them with the matching Jackson
+ * data format and the same field names.
+ *
+ * @author Christian Tzolov
+ */
+public class PayloadEncoder {
+
+	public enum Encoding {
+
+		json("application/json"), smile("application/x-jackson-smile"), cbor("application/cbor");
+
+		private final String contentType;
+
+		Encoding(String contentType) {
+			this.contentType = contentType;
+		}
+
+		public String getContentType() {
+			return this.contentType;
+		}
+	}
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final Encoding encoding;
+
+	private final ObjectMapper mapper;
+
+	/**
+	 * @param jsonMapper The application's JSON mapper, used for the json encoding.
+	 * @param encoding Output payload encoding.
+	 */
+	public PayloadEncoder(ObjectMapper jsonMapper, Encoding encoding) {
+		this.encoding = encoding;
+		switch (encoding) {
+		case smile: {
+			this.mapper = new ObjectMapper(new SmileFactory());
+			break;
+		}
+		case cbor: {
+			this.mapper = new ObjectMapper(new CBORFactory());
+			break;
+		}
+		default: {
+			this.mapper = jsonMapper;
+		}
+		}
+	}
+
+	public byte[] encode(Object value) throws IOException {
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		try {
+			this.mapper.writeValue(buffer, value);
+			return buffer.toByteArray();
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	/**
+	 * Encodes raw JSON documents, as returned by the Twitter APIs, without re-encoding them as JSON strings. A list
+	 * of documents is composed into a single JSON array. For the json encoding the documents are copied verbatim
+	 * into the output buffer, for the binary encodings they are transcoded token by token.
+	 * @param rawJson Raw JSON String or a List of raw JSON Strings.
+	 */
+	public byte[] encodeRaw(Object rawJson) throws IOException {
+		JsonFactory jsonFactory = this.mapper.getFactory();
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		try {
+			try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+				if (rawJson instanceof List) {
+					generator.writeStartArray();
+					for (Object element : (List<?>) rawJson) {
+						this.writeRaw(generator, (String) element);
+					}
+					generator.writeEndArray();
+				}
+				else {
+					this.writeRaw(generator, (String) rawJson);
+				}
+			}
+			return buffer.toByteArray();
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	private void writeRaw(JsonGenerator generator, String rawJson) throws IOException {
+		if (rawJson == null) {
+			generator.writeNull();
+		}
+		else if (this.encoding == Encoding.json) {
+			generator.writeRawValue(rawJson);
+		}
+		else {
+			try (JsonParser parser = JSON_FACTORY.createParser(rawJson)) {
+				parser.nextToken();
+				generator.copyCurrentStructure(parser);
+			}
+		}
+	}
+
+	public Encoding getEncoding() {
+		return this.encoding;
+	}
+
+	public String getContentType() {
+		return this.encoding.getContentType();
+	}
+}
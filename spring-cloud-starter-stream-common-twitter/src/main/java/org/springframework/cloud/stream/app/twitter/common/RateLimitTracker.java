@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import twitter4j.RateLimitStatus;
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+import twitter4j.TwitterResponse;
+
+import org.springframework.scheduling.Trigger;
+
+/**
+ * Tracks the remaining Twitter API quota per endpoint, as reported by the rate limit status of every response.
+ *
+ * The API calls made through the throttled Twitter client wait for the quota window reset instead of failing with 429
+ * (Too Many Requests), unless the reset is further away than the max wait. Then, like when the waiting thread is
+ * interrupted, the call fails fast with a TwitterException and is not made. The pollers can use the endpoint trigger to spread the remaining quota evenly over the
+ * remaining time of the window. Until the first response is received the poll interval is used.
+ *
+ * When the calls are spread over a credential pool, the status of every pooled client is tracked separately and the
+ * quota of the endpoint is the aggregate of the clients quotas. The calls are held back only when all the clients are
+ * exhausted, and the pollers are paced by the combined remaining quota.
+ *
+ * The endpoints are identified by the Twitter client method names, e.g. search or getFollowersList.
+ *
+ * @author Christian Tzolov
+ */
+public class RateLimitTracker {
+
+	private static final Log logger = LogFactory.getLog(RateLimitTracker.class);
+
+	private static final int TOO_MANY_REQUESTS = 429;
+
+	private final TwitterConnectionProperties.RateLimit rateLimit;
+
+	private final Set<Object> clients = ConcurrentHashMap.newKeySet();
+
+	private final Map<String, Map<Object, RateLimitStatus>> statuses = new ConcurrentHashMap<>();
+
+	public RateLimitTracker(TwitterConnectionProperties.RateLimit rateLimit) {
+		this.rateLimit = rateLimit;
+	}
+
+	/**
+	 * Wraps a single client, e.g. a credential pool member, so that the rate limit status of its API calls is
+	 * recorded, separately from the other tracked clients. The calls are not held back.
+	 */
+	public Twitter track(Twitter twitter) {
+		Object client = new Object();
+		this.clients.add(client);
+		return (Twitter) Proxy.newProxyInstance(Twitter.class.getClassLoader(), new Class<?>[] { Twitter.class },
+				(proxy, method, args) -> {
+					String endpoint = method.getName();
+					try {
+						Object response = method.invoke(twitter, args);
+						if (response instanceof TwitterResponse) {
+							this.update(client, endpoint, ((TwitterResponse) response).getRateLimitStatus());
+						}
+						return response;
+					}
+					catch (InvocationTargetException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof TwitterException && ((TwitterException) cause).exceededRateLimitation()) {
+							this.update(client, endpoint, ((TwitterException) cause).getRateLimitStatus());
+						}
+						throw cause;
+					}
+				});
+	}
+
+	/**
+	 * Wraps a Twitter client, backed by one or more tracked clients, so that the calls to endpoints exhausted by all
+	 * the tracked clients are held back until the first quota reset.
+	 */
+	public Twitter throttle(Twitter twitter) {
+		return (Twitter) Proxy.newProxyInstance(Twitter.class.getClassLoader(), new Class<?>[] { Twitter.class },
+				(proxy, method, args) -> {
+					String endpoint = method.getName();
+					TwitterException rateLimited = null;
+					for (int attempt = 0; ; attempt++) {
+						this.awaitQuota(endpoint, rateLimited);
+						try {
+							return method.invoke(twitter, args);
+						}
+						catch (InvocationTargetException e) {
+							Throwable cause = e.getCause();
+							if (cause instanceof TwitterException
+									&& ((TwitterException) cause).exceededRateLimitation()
+									&& attempt < this.rateLimit.getMaxRetries()) {
+								rateLimited = (TwitterException) cause;
+								continue;
+							}
+							throw cause;
+						}
+					}
+				});
+	}
+
+	private void update(Object client, String endpoint, RateLimitStatus status) {
+		if (status != null) {
+			this.statuses.computeIfAbsent(endpoint, key -> new ConcurrentHashMap<>()).put(client, status);
+		}
+	}
+
+	/**
+	 * @return Milliseconds to wait before the next endpoint call, 0 if any of the clients has quota left.
+	 */
+	public long quotaDelay(String endpoint) {
+		Map<Object, RateLimitStatus> statuses = this.statuses.get(endpoint);
+		if (statuses == null || statuses.size() < this.clients.size()) {
+			// Some clients have not called the endpoint yet
+			return 0;
+		}
+		long delay = Long.MAX_VALUE;
+		for (RateLimitStatus status : statuses.values()) {
+			if (status.getRemaining() > 0) {
+				return 0;
+			}
+			delay = Math.min(delay, this.untilReset(status));
+		}
+		return delay;
+	}
+
+	/**
+	 * @param endpoint Endpoint to pace.
+	 * @param pollInterval Poll interval (in milliseconds) used while the endpoint rate limit status is unknown.
+	 * @return Milliseconds until the next poll, so the remaining quota of all the clients lasts until their window
+	 * reset.
+	 */
+	public long pollDelay(String endpoint, long pollInterval) {
+		Map<Object, RateLimitStatus> statuses = this.statuses.get(endpoint);
+		if (!this.rateLimit.isPacing() || statuses == null || statuses.isEmpty()) {
+			return pollInterval;
+		}
+		// Calls per millisecond the clients can make until their windows reset
+		double rate = 0;
+		for (RateLimitStatus status : statuses.values()) {
+			long untilReset = this.untilReset(status);
+			if (untilReset == 0) {
+				return this.rateLimit.getMinPollInterval();
+			}
+			rate += (double) Math.max(0, status.getRemaining()) / untilReset;
+		}
+		if (rate == 0) {
+			return this.quotaDelay(endpoint);
+		}
+		return Math.max(this.rateLimit.getMinPollInterval(), (long) (1 / rate));
+	}
+
+	/**
+	 * @param endpoint Polled endpoint.
+	 * @param pollInterval Poll interval (in milliseconds) used while the endpoint rate limit status is unknown.
+	 * @return a poller trigger paced by the remaining endpoint quota.
+	 */
+	public Trigger trigger(String endpoint, long pollInterval) {
+		return triggerContext -> {
+			Date lastCompletion = triggerContext.lastCompletionTime();
+			if (lastCompletion == null) {
+				return new Date();
+			}
+			return new Date(lastCompletion.getTime() + this.pollDelay(endpoint, pollInterval));
+		};
+	}
+
+	/**
+	 * Waits for the endpoint quota reset.
+	 * @param endpoint Endpoint about to be called.
+	 * @param rateLimited Rate limit failure of the previous attempt, if any, thrown when the wait is too long.
+	 * @throws TwitterException if the reset is further away than the max wait or the wait is interrupted.
+	 */
+	private void awaitQuota(String endpoint, TwitterException rateLimited) throws TwitterException {
+		long delay = this.quotaDelay(endpoint);
+		if (delay == 0) {
+			return;
+		}
+		if (delay > this.rateLimit.getMaxWait()) {
+			String message = String.format("Rate limit of %s exhausted, the quota reset in %s ms exceeds the %s ms "
+					+ "max wait", endpoint, delay, this.rateLimit.getMaxWait());
+			logger.warn(message);
+			throw (rateLimited != null) ? rateLimited : new TwitterException(message, null, TOO_MANY_REQUESTS);
+		}
+		logger.warn(String.format("Rate limit of %s exhausted, waiting %s ms for the quota reset", endpoint, delay));
+		try {
+			Thread.sleep(delay);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TwitterException("Interrupted while waiting for the quota reset of " + endpoint, e);
+		}
+	}
+
+	private long untilReset(RateLimitStatus status) {
+		return Math.max(0, status.getResetTimeInSeconds() * 1000L - System.currentTimeMillis());
+	}
+}
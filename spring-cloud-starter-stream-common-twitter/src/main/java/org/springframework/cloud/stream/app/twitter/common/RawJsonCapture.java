@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import twitter4j.QueryResult;
+import twitter4j.Twitter;
+import twitter4j.TwitterObjectFactory;
+
+/**
+ * Keeps the raw JSON of the Twitter API responses together with the response objects.
+ *
+ * Twitter4J exposes the raw JSON through a thread local, accessible only from the thread that made the API call and
+ * only until the next call. The capture takes a copy right after each call, on the calling thread, so the raw JSON
+ * can later be retrieved from any thread. The responses are weakly referenced, so an entry lives only as long as its
+ * response object does.
+ *
+ * The responses are matched by identity: the Twitter4J Status and User objects are equal by ID, but the objects
+ * returned by different calls carry different raw JSON.
+ *
+ * @author Christian Tzolov
+ */
+public class RawJsonCapture {
+
+	private final Map<IdentityKey, String> rawJsonMap = new ConcurrentHashMap<>();
+
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+	/**
+	 * Wraps the Twitter client so that the raw JSON of every API response is captured.
+	 */
+	public Twitter proxy(Twitter twitter) {
+		return (Twitter) Proxy.newProxyInstance(Twitter.class.getClassLoader(), new Class<?>[] { Twitter.class },
+				(proxy, method, args) -> {
+					try {
+						return this.capture(method.invoke(twitter, args));
+					}
+					catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	/**
+	 * Captures the raw JSON of the response and of the response elements. Must be called on the thread that made
+	 * the API call, before any other API call.
+	 * @param response Twitter API response.
+	 * @return the response.
+	 */
+	public <T> T capture(T response) {
+		if (response instanceof Iterable) {
+			for (Object element : (Iterable<?>) response) {
+				this.captureObject(element);
+			}
+		}
+		else if (response instanceof QueryResult) {
+			this.capture(((QueryResult) response).getTweets());
+		}
+		else {
+			this.captureObject(response);
+		}
+		return response;
+	}
+
+	private void captureObject(Object object) {
+		this.expungeCollected();
+		if (object != null) {
+			String rawJson = TwitterObjectFactory.getRawJSON(object);
+			if (rawJson != null) {
+				this.rawJsonMap.put(new IdentityKey(object, this.collected), rawJson);
+			}
+		}
+	}
+
+	/**
+	 * @param object Response object returned by the Twitter API.
+	 * @return the raw JSON of the object or null if the object was not captured.
+	 */
+	public String getRawJson(Object object) {
+		this.expungeCollected();
+		return (object != null) ? this.rawJsonMap.get(new IdentityKey(object, null)) : null;
+	}
+
+	int size() {
+		this.expungeCollected();
+		return this.rawJsonMap.size();
+	}
+
+	private void expungeCollected() {
+		Reference<?> reference;
+		while ((reference = this.collected.poll()) != null) {
+			this.rawJsonMap.remove(reference);
+		}
+	}
+
+	/**
+	 * Weak reference to a response object, equal only to the references to the same object.
+	 */
+	private static final class IdentityKey extends WeakReference<Object> {
+
+		private final int hash;
+
+		IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.hash = System.identityHashCode(referent);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof IdentityKey)) {
+				return false;
+			}
+			Object referent = this.get();
+			return referent != null && referent == ((IdentityKey) other).get();
+		}
+	}
+}
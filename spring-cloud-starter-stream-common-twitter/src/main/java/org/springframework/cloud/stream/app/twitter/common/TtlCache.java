@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * Size bounded, in-memory cache of Twitter API responses, with per entry time to live.
+ *
+ * When the cache is full the least recently used entry is evicted. The expired entries are dropped on access.
+ * Besides the values, the cache can remember the keys known to have no value (negative caching), usually with a
+ * shorter time to live, so repeated requests for unknown keys do not hit the Twitter APIs either.
+ *
+ * @author Christian Tzolov
+ */
+public class TtlCache<K, V> {
+
+	private final long ttl;
+
+	private final long negativeTtl;
+
+	private final Map<K, Entry<V>> entries;
+
+	private long hitCount;
+
+	private long missCount;
+
+	private long evictionCount;
+
+	/**
+	 * @param maxSize Maximum number of entries.
+	 * @param ttl Time to live (in milliseconds) of the values.
+	 * @param negativeTtl Time to live (in milliseconds) of the absent value entries.
+	 */
+	public TtlCache(int maxSize, long ttl, long negativeTtl) {
+		Assert.isTrue(maxSize > 0, "The cache max size must be positive but was: " + maxSize);
+		this.ttl = ttl;
+		this.negativeTtl = negativeTtl;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				boolean evict = this.size() > maxSize;
+				if (evict) {
+					evictionCount++;
+				}
+				return evict;
+			}
+		};
+	}
+
+	/**
+	 * @param key Key to look up.
+	 * @return the cached entry or null if the key is not cached or its entry has expired. The entry value is null
+	 * for keys cached as absent.
+	 */
+	public synchronized Entry<V> get(K key) {
+		Entry<V> entry = this.entries.get(key);
+		if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+			this.entries.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			this.missCount++;
+		}
+		else {
+			this.hitCount++;
+		}
+		return entry;
+	}
+
+	public synchronized void put(K key, V value) {
+		this.entries.put(key, new Entry<>(value, System.currentTimeMillis() + this.ttl));
+	}
+
+	/**
+	 * Remembers that the key has no value.
+	 */
+	public synchronized void putAbsent(K key) {
+		if (this.negativeTtl > 0) {
+			this.entries.put(key, new Entry<>(null, System.currentTimeMillis() + this.negativeTtl));
+		}
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "TtlCache{" +
+				"size=" + this.entries.size() +
+				", hitCount=" + this.hitCount +
+				", missCount=" + this.missCount +
+				", evictionCount=" + this.evictionCount +
+				'}';
+	}
+
+	public static final class Entry<V> {
+
+		private final V value;
+
+		private final long expiresAt;
+
+		private Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * @return the cached value or null if the key is cached as absent.
+		 */
+		public V getValue() {
+			return this.value;
+		}
+	}
+}
@@ -16,30 +16,35 @@
 
 package org.springframework.cloud.stream.app.twitter.common;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import twitter4j.Twitter;
 import twitter4j.TwitterFactory;
-import twitter4j.TwitterObjectFactory;
 import twitter4j.TwitterStream;
 import twitter4j.TwitterStreamFactory;
 import twitter4j.conf.ConfigurationBuilder;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.cloud.stream.config.BindingProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.integration.support.MutableMessage;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.MessageBuilder;
-import org.springframework.util.MimeTypeUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 /**
  *
@@ -58,8 +63,92 @@ public class TwitterConnectionConfiguration {
 	}
 
 	@Bean
-	public Twitter twitter(twitter4j.conf.Configuration configuration) {
-		return new TwitterFactory(configuration).getInstance();
+	public ExpressionEvaluator expressionEvaluator(ObjectMapper mapper) {
+		return new ExpressionEvaluator(mapper);
+	}
+
+	@Bean
+	public RawJsonCapture rawJsonCapture() {
+		return new RawJsonCapture();
+	}
+
+	/**
+	 * Executor of the asynchronous processor requests, created only in async mode. Define an ExecutorService bean
+	 * with the same name to customize it.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "twitter.connection.async.enabled", havingValue = "true")
+	@ConditionalOnMissingBean(name = "twitterRequestExecutor")
+	public ExecutorService twitterRequestExecutor(TwitterConnectionProperties properties) {
+		if (properties.getAsync().isVirtualThreads()) {
+			ExecutorService executor = newVirtualThreadPerTaskExecutor();
+			if (executor != null) {
+				return executor;
+			}
+		}
+		return Executors.newFixedThreadPool(properties.getAsync().getConcurrency(),
+				new CustomizableThreadFactory("twitter-request-"));
+	}
+
+	/**
+	 * The apps are built for Java 8, so the virtual threads executor (Java 21+) is looked up reflectively.
+	 * @return a new virtual thread per task executor or null if not supported by the running JVM.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			logger.warn("Virtual threads are not supported by the running JVM, using platform threads instead");
+			return null;
+		}
+	}
+
+	/**
+	 * The request executor and the error channel are looked up only in async mode, the synchronous flows use
+	 * neither of them.
+	 */
+	@Bean
+	public AsyncRequestProcessor asyncRequestProcessor(TwitterConnectionProperties properties,
+			@Qualifier("twitterRequestExecutor") ObjectProvider<ExecutorService> twitterRequestExecutor,
+			@Qualifier(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME) ObjectProvider<MessageChannel> errorChannel) {
+		if (!properties.getAsync().isEnabled()) {
+			return new AsyncRequestProcessor(properties.getAsync(), null, null);
+		}
+		return new AsyncRequestProcessor(properties.getAsync(), twitterRequestExecutor.getObject(),
+				errorChannel.getObject());
+	}
+
+	@Bean
+	public RateLimitTracker rateLimitTracker(TwitterConnectionProperties properties) {
+		return new RateLimitTracker(properties.getRateLimit());
+	}
+
+	@Bean
+	public Twitter twitter(twitter4j.conf.Configuration configuration, TwitterConnectionProperties properties,
+			Function<TwitterConnectionProperties, ConfigurationBuilder> toConfigurationBuilder,
+			RawJsonCapture rawJsonCapture, RateLimitTracker rateLimitTracker) {
+
+		// The rate limit status is tracked per credentials set, so that an exhausted set does not hold back the others
+		Twitter twitter = rateLimitTracker.track(new TwitterFactory(configuration).getInstance());
+
+		if (!properties.getCredentials().isEmpty()) {
+			List<Twitter> clients = new ArrayList<>();
+			clients.add(twitter);
+			for (TwitterConnectionProperties.Credentials credentials : properties.getCredentials()) {
+				clients.add(rateLimitTracker.track(new TwitterFactory(toConfigurationBuilder.apply(properties)
+						.setOAuthConsumerKey(credentials.getConsumerKey())
+						.setOAuthConsumerSecret(credentials.getConsumerSecret())
+						.setOAuthAccessToken(credentials.getAccessToken())
+						.setOAuthAccessTokenSecret(credentials.getAccessTokenSecret())
+						.build()).getInstance()));
+			}
+			twitter = new CredentialPool(clients, properties.getCredentialsIsolationTime()).proxy();
+		}
+
+		twitter = rateLimitTracker.throttle(configuration.isJSONStoreEnabled() ? rawJsonCapture.proxy(twitter) : twitter);
+
+		return new EndpointConcurrencyLimiter(properties.getAsync().getEndpointConcurrency()).proxy(twitter);
 	}
 
 	@Bean
@@ -75,38 +164,38 @@ public class TwitterConnectionConfiguration {
 				.setOAuthConsumerKey(properties.getConsumerKey())
 				.setOAuthConsumerSecret(properties.getConsumerSecret())
 				.setOAuthAccessToken(properties.getAccessToken())
-				.setOAuthAccessTokenSecret(properties.getAccessTokenSecret());
+				.setOAuthAccessTokenSecret(properties.getAccessTokenSecret())
+				.setHttpConnectionTimeout(properties.getHttp().getConnectTimeout())
+				.setHttpReadTimeout(properties.getHttp().getReadTimeout())
+				.setHttpStreamingReadTimeout(properties.getHttp().getStreamingReadTimeout())
+				.setHttpRetryCount(properties.getHttp().getRetryCount())
+				.setHttpRetryIntervalSeconds(properties.getHttp().getRetryInterval())
+				.setGZIPEnabled(properties.getHttp().isGzip());
 	}
 
+	/**
+	 * Converts byte[] payloads of text or json content types into lazily decoded String payloads.
+	 */
 	@Bean
 	public Function<Message<?>, Message<?>> stringifyPayload() {
+		return LazyPayloadMessage::stringify;
+	}
 
-		return message -> {
-			if (message.getPayload() instanceof byte[]) {
-				String contentType = message.getHeaders().containsKey(MessageHeaders.CONTENT_TYPE)
-						? message.getHeaders().get(MessageHeaders.CONTENT_TYPE).toString()
-						: BindingProperties.DEFAULT_CONTENT_TYPE.toString();
-				if (contentType.contains("text") || contentType.contains("json") || contentType.contains("x-spring-tuple")) {
-					message = new MutableMessage<>(new String(((byte[]) message.getPayload())), message.getHeaders());
-				}
-			}
-
-			return message;
-		};
+	@Bean
+	public PayloadEncoder payloadEncoder(ObjectMapper mapper, TwitterConnectionProperties properties) {
+		return new PayloadEncoder(mapper, properties.getEncoding());
 	}
 
 	@Bean
-	public Function<Object, Message<byte[]>> json(ObjectMapper mapper) {
+	public Function<Object, Message<byte[]>> json(PayloadEncoder payloadEncoder) {
 		return objects -> {
 			try {
-				String json = mapper.writeValueAsString(objects);
-
 				return MessageBuilder
-						.withPayload(json.getBytes())
-						.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+						.withPayload(payloadEncoder.encode(objects))
+						.setHeader(MessageHeaders.CONTENT_TYPE, payloadEncoder.getContentType())
 						.build();
 			}
-			catch (JsonProcessingException e) {
+			catch (IOException e) {
 				logger.error("Status to JSON conversion error!", e);
 			}
 			return null;
@@ -116,31 +205,50 @@ public class TwitterConnectionConfiguration {
 	/**
 	 *  Retrieves the raw JSON form of the provided object.
 	 *
-	 *  Note that raw JSON forms can be retrieved only from the same thread invoked the last method
-	 *  call and will become inaccessible once another method call.
+	 *  The raw JSON of the objects returned by the twitter bean is captured right after the API call, so it can be
+	 *  retrieved from any thread, for as long as the object is referenced.
 	 *
 	 * @return Function that can retrieve the raw JSON object from the objects returned by the Twitter4J's APIs.
 	 */
 	@Bean
-	public Function<Object, Object> rawJsonExtractor() {
+	public Function<Object, Object> rawJsonExtractor(RawJsonCapture rawJsonCapture) {
 		return response -> {
 			if (response instanceof List) {
 				List responses = (List) response;
 				List<String> rawJsonList = new ArrayList<>();
 				for (Object object : responses) {
-					rawJsonList.add(TwitterObjectFactory.getRawJSON(object));
+					rawJsonList.add(rawJsonCapture.getRawJson(object));
 				}
 				return rawJsonList;
 			}
 			else {
-				return TwitterObjectFactory.getRawJSON(response);
+				return rawJsonCapture.getRawJson(response);
 			}
 		};
 	}
 
 	@Bean
 	public Function<Object, Message<byte[]>> managedJson(TwitterConnectionProperties properties,
-			Function<Object, Object> rawJsonExtractor, Function<Object, Message<byte[]>> json) {
-		return list -> (properties.isRawJson()) ? rawJsonExtractor.andThen(json).apply(list) : json.apply(list);
+			Function<Object, Object> rawJsonExtractor, Function<Object, Message<byte[]>> json,
+			PayloadEncoder payloadEncoder) {
+		return list -> (properties.isRawJson()) ?
+				rawJsonExtractor.andThen(rawJson -> rawJsonMessage(rawJson, payloadEncoder)).apply(list) :
+				json.apply(list);
+	}
+
+	/**
+	 * Composes the raw JSON strings straight into the payload, rather than encoding them as JSON string values.
+	 */
+	private Message<byte[]> rawJsonMessage(Object rawJson, PayloadEncoder payloadEncoder) {
+		try {
+			return MessageBuilder
+					.withPayload(payloadEncoder.encodeRaw(rawJson))
+					.setHeader(MessageHeaders.CONTENT_TYPE, payloadEncoder.getContentType())
+					.build();
+		}
+		catch (IOException e) {
+			logger.error("Raw JSON conversion error!", e);
+		}
+		return null;
 	}
 }
@@ -16,7 +16,15 @@
 
 package org.springframework.cloud.stream.app.twitter.common;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
@@ -65,6 +73,35 @@ public class TwitterConnectionProperties {
 	 */
 	private boolean rawJson = true;
 
+	/**
+	 * Encoding of the output message payloads: json, smile (binary JSON) or cbor. The content-type header is set
+	 * accordingly.
+	 */
+	private PayloadEncoder.Encoding encoding = PayloadEncoder.Encoding.json;
+
+	/**
+	 * Additional credentials sets. When set, the REST API calls are spread over a pool of clients, one for the
+	 * credentials above and one for every additional set, picking the client with the most remaining quota.
+	 */
+	@Valid
+	private List<Credentials> credentials = new ArrayList<>();
+
+	/**
+	 * Time (in milliseconds) a pooled client is excluded from the pool after failing with Unauthorized (401).
+	 * Clients exceeding the rate limit are excluded until the rate limit window reset.
+	 */
+	@PositiveOrZero
+	private long credentialsIsolationTime = 60000;
+
+	@Valid
+	private Http http = new Http();
+
+	@Valid
+	private RateLimit rateLimit = new RateLimit();
+
+	@Valid
+	private Async async = new Async();
+
 	public String getConsumerKey() {
 		return consumerKey;
 	}
@@ -112,4 +149,363 @@ public class TwitterConnectionProperties {
 	public void setRawJson(boolean rawJson) {
 		this.rawJson = rawJson;
 	}
+
+	public PayloadEncoder.Encoding getEncoding() {
+		return encoding;
+	}
+
+	public void setEncoding(PayloadEncoder.Encoding encoding) {
+		this.encoding = encoding;
+	}
+
+	public List<Credentials> getCredentials() {
+		return credentials;
+	}
+
+	public void setCredentials(List<Credentials> credentials) {
+		this.credentials = credentials;
+	}
+
+	public long getCredentialsIsolationTime() {
+		return credentialsIsolationTime;
+	}
+
+	public void setCredentialsIsolationTime(long credentialsIsolationTime) {
+		this.credentialsIsolationTime = credentialsIsolationTime;
+	}
+
+	public Http getHttp() {
+		return http;
+	}
+
+	public void setHttp(Http http) {
+		this.http = http;
+	}
+
+	public RateLimit getRateLimit() {
+		return rateLimit;
+	}
+
+	public void setRateLimit(RateLimit rateLimit) {
+		this.rateLimit = rateLimit;
+	}
+
+	public Async getAsync() {
+		return async;
+	}
+
+	public void setAsync(Async async) {
+		this.async = async;
+	}
+
+	public static class Credentials {
+
+		@NotEmpty
+		private String consumerKey;
+
+		@NotEmpty
+		private String consumerSecret;
+
+		@NotEmpty
+		private String accessToken;
+
+		@NotEmpty
+		private String accessTokenSecret;
+
+		public String getConsumerKey() {
+			return consumerKey;
+		}
+
+		public void setConsumerKey(String consumerKey) {
+			this.consumerKey = consumerKey;
+		}
+
+		public String getConsumerSecret() {
+			return consumerSecret;
+		}
+
+		public void setConsumerSecret(String consumerSecret) {
+			this.consumerSecret = consumerSecret;
+		}
+
+		public String getAccessToken() {
+			return accessToken;
+		}
+
+		public void setAccessToken(String accessToken) {
+			this.accessToken = accessToken;
+		}
+
+		public String getAccessTokenSecret() {
+			return accessTokenSecret;
+		}
+
+		public void setAccessTokenSecret(String accessTokenSecret) {
+			this.accessTokenSecret = accessTokenSecret;
+		}
+	}
+
+	public static class Http {
+
+		/**
+		 * Connection timeout (in milliseconds) of the Twitter REST API calls.
+		 */
+		@PositiveOrZero
+		private int connectTimeout = 20000;
+
+		/**
+		 * Read timeout (in milliseconds) of the Twitter REST API calls.
+		 */
+		@PositiveOrZero
+		private int readTimeout = 120000;
+
+		/**
+		 * Read timeout (in milliseconds) of the Twitter Streaming API connections.
+		 */
+		@PositiveOrZero
+		private int streamingReadTimeout = 40000;
+
+		/**
+		 * Request gzip compressed responses.
+		 */
+		private boolean gzip = true;
+
+		/**
+		 * Number of retries of a failed REST API call.
+		 */
+		@PositiveOrZero
+		private int retryCount = 0;
+
+		/**
+		 * Pause (in seconds) between the retries of a failed REST API call.
+		 */
+		@PositiveOrZero
+		private int retryInterval = 5;
+
+		/**
+		 * Reuse the HTTP connections across the REST API calls instead of opening a new connection per call. When
+		 * set, applied on startup as the JVM wide http.keepAlive system property, unless already set.
+		 */
+		private boolean keepAlive = true;
+
+		/**
+		 * Maximum number of idle connections kept alive per host. When set, applied on startup as the JVM wide
+		 * http.maxConnections system property, unless already set.
+		 */
+		@Positive
+		private int maxConnections = 5;
+
+		/**
+		 * Fully qualified class name of an alternative twitter4j.HttpClient implementation. Uses the Twitter4J
+		 * default client if not set. Applied on startup as the JVM wide twitter4j.http.httpClient system property,
+		 * unless already set.
+		 */
+		private String client;
+
+		public int getConnectTimeout() {
+			return connectTimeout;
+		}
+
+		public void setConnectTimeout(int connectTimeout) {
+			this.connectTimeout = connectTimeout;
+		}
+
+		public int getReadTimeout() {
+			return readTimeout;
+		}
+
+		public void setReadTimeout(int readTimeout) {
+			this.readTimeout = readTimeout;
+		}
+
+		public int getStreamingReadTimeout() {
+			return streamingReadTimeout;
+		}
+
+		public void setStreamingReadTimeout(int streamingReadTimeout) {
+			this.streamingReadTimeout = streamingReadTimeout;
+		}
+
+		public boolean isGzip() {
+			return gzip;
+		}
+
+		public void setGzip(boolean gzip) {
+			this.gzip = gzip;
+		}
+
+		public int getRetryCount() {
+			return retryCount;
+		}
+
+		public void setRetryCount(int retryCount) {
+			this.retryCount = retryCount;
+		}
+
+		public int getRetryInterval() {
+			return retryInterval;
+		}
+
+		public void setRetryInterval(int retryInterval) {
+			this.retryInterval = retryInterval;
+		}
+
+		public boolean isKeepAlive() {
+			return keepAlive;
+		}
+
+		public void setKeepAlive(boolean keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		public int getMaxConnections() {
+			return maxConnections;
+		}
+
+		public void setMaxConnections(int maxConnections) {
+			this.maxConnections = maxConnections;
+		}
+
+		public String getClient() {
+			return client;
+		}
+
+		public void setClient(String client) {
+			this.client = client;
+		}
+	}
+
+	public static class RateLimit {
+
+		/**
+		 * Pace the pollers by the remaining API quota, spreading it evenly until the rate limit window reset.
+		 * With additional credentials sets the combined quota of all the sets is used. When disabled the fixed poll
+		 * intervals are used.
+		 */
+		private boolean pacing = true;
+
+		/**
+		 * Minimal interval (in milliseconds) between two polls, regardless of the remaining quota.
+		 */
+		@PositiveOrZero
+		private long minPollInterval = 1000;
+
+		/**
+		 * Number of times an API call rejected for exceeding the rate limit is retried after the quota reset.
+		 */
+		@PositiveOrZero
+		private int maxRetries = 1;
+
+		/**
+		 * Maximum time (in milliseconds) an API call waits for the quota reset of an exhausted endpoint. The calls
+		 * that would wait longer fail fast with the rate limit error instead.
+		 */
+		@PositiveOrZero
+		private long maxWait = 900000;
+
+		public boolean isPacing() {
+			return pacing;
+		}
+
+		public void setPacing(boolean pacing) {
+			this.pacing = pacing;
+		}
+
+		public long getMinPollInterval() {
+			return minPollInterval;
+		}
+
+		public void setMinPollInterval(long minPollInterval) {
+			this.minPollInterval = minPollInterval;
+		}
+
+		public int getMaxRetries() {
+			return maxRetries;
+		}
+
+		public void setMaxRetries(int maxRetries) {
+			this.maxRetries = maxRetries;
+		}
+
+		public long getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(long maxWait) {
+			this.maxWait = maxWait;
+		}
+	}
+
+	public static class Async {
+
+		/**
+		 * Run the processors Twitter API requests asynchronously, on the Twitter request executor, instead of on the
+		 * input thread. The failed requests are published to the errorChannel.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of in flight asynchronous requests. Applies to the virtual threads too, raise it to make use
+		 * of them and limit the individual endpoints with the endpoint concurrency instead.
+		 */
+		@Positive
+		private int concurrency = 8;
+
+		/**
+		 * Send the asynchronous request responses in the order of the input messages.
+		 */
+		private boolean ordered = true;
+
+		/**
+		 * Run every asynchronous request on its own virtual thread. Requires Java 21 or newer, falls back to the
+		 * platform threads pool otherwise. The number of in flight requests is still capped by the concurrency.
+		 */
+		private boolean virtualThreads = false;
+
+		/**
+		 * Maximum number of concurrent calls per Twitter API endpoint, keyed by the Twitter client method name
+		 * (e.g. lookupUsers or search). Not limited unless set.
+		 */
+		private Map<String, Integer> endpointConcurrency = new HashMap<>();
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getConcurrency() {
+			return concurrency;
+		}
+
+		public void setConcurrency(int concurrency) {
+			this.concurrency = concurrency;
+		}
+
+		public boolean isOrdered() {
+			return ordered;
+		}
+
+		public void setOrdered(boolean ordered) {
+			this.ordered = ordered;
+		}
+
+		public boolean isVirtualThreads() {
+			return virtualThreads;
+		}
+
+		public void setVirtualThreads(boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+		}
+
+		public Map<String, Integer> getEndpointConcurrency() {
+			return endpointConcurrency;
+		}
+
+		public void setEndpointConcurrency(Map<String, Integer> endpointConcurrency) {
+			this.endpointConcurrency = endpointConcurrency;
+		}
+	}
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * Applies the twitter.connection.http keep-alive, max-connections and client settings before the application context
+ * is created.
+ *
+ * The Twitter4J clients are backed by the JDK HttpURLConnection, whose connection reuse is controlled by JVM wide
+ * system properties, read once when the JDK and Twitter4J HTTP classes are loaded. Hence the settings are applied
+ * once on startup, ahead of any Twitter API call, instead of by a bean. Only the twitter.connection.http settings
+ * present in the environment are applied, the JDK defaults are left untouched otherwise. Explicitly set system
+ * properties take precedence.
+ *
+ * @author Christian Tzolov
+ */
+public class TwitterHttpClientEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+	static final String HTTP_PROPERTIES_PREFIX = "twitter.connection.http";
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		Binder binder = Binder.get(environment);
+
+		binder.bind(HTTP_PROPERTIES_PREFIX + ".keep-alive", Boolean.class)
+				.ifBound(keepAlive -> setIfAbsent("http.keepAlive", String.valueOf(keepAlive)));
+		binder.bind(HTTP_PROPERTIES_PREFIX + ".max-connections", Integer.class)
+				.ifBound(maxConnections -> setIfAbsent("http.maxConnections", String.valueOf(maxConnections)));
+		binder.bind(HTTP_PROPERTIES_PREFIX + ".client", String.class)
+				.ifBound(client -> setIfAbsent("twitter4j.http.httpClient", client));
+	}
+
+	private static void setIfAbsent(String key, String value) {
+		if (System.getProperty(key) == null) {
+			System.setProperty(key, value);
+		}
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.GenericMessage;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class AsyncRequestProcessorTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final QueueChannel output = new QueueChannel();
+
+	private final QueueChannel errors = new QueueChannel();
+
+	/** Requests complete only once their latch is released. */
+	private final Map<String, CountDownLatch> latches = new ConcurrentHashMap<>();
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testOrdered() {
+		MessageHandler handler = this.handler(4, true, this::request, this.output);
+
+		handler.handleMessage(this.message("first"));
+		handler.handleMessage(this.message("second"));
+		handler.handleMessage(this.message("third"));
+
+		this.release("third");
+		this.release("second");
+		assertThat(this.output.receive(200), nullValue());
+
+		this.release("first");
+		assertThat(this.payloads(3), is(Arrays.asList("first", "second", "third")));
+	}
+
+	@Test
+	public void testUnordered() {
+		MessageHandler handler = this.handler(4, false, this::request, this.output);
+
+		handler.handleMessage(this.message("first"));
+		handler.handleMessage(this.message("second"));
+
+		this.release("second");
+		assertThat(this.payloads(1), is(Arrays.asList("second")));
+
+		this.release("first");
+		assertThat(this.payloads(1), is(Arrays.asList("first")));
+	}
+
+	@Test
+	public void testFailedRequestPublishedToErrorChannel() {
+		MessageHandler handler = this.handler(1, true, message -> {
+			if ("fail".equals(message.getPayload())) {
+				throw new IllegalStateException("Rate limit exceeded");
+			}
+			return this.request(message);
+		}, this.output);
+
+		Message<?> failed = this.message("fail");
+		handler.handleMessage(failed);
+
+		ErrorMessage error = (ErrorMessage) this.errors.receive(5000);
+		assertThat(error, notNullValue());
+		assertThat(error.getPayload(), instanceOf(MessageHandlingException.class));
+		assertThat(((MessagingException) error.getPayload()).getFailedMessage(), sameInstance(failed));
+		assertThat(error.getPayload().getCause(), instanceOf(IllegalStateException.class));
+		assertThat(error.getOriginalMessage(), sameInstance(failed));
+
+		// The permit of the failed request is released
+		handler.handleMessage(this.message("next"));
+		this.release("next");
+		assertThat(this.payloads(1), is(Arrays.asList("next")));
+	}
+
+	@Test
+	public void testFailedSendPublishedToErrorChannel() {
+		MessageChannel failingOutput = (message, timeout) -> {
+			throw new IllegalStateException("Output unavailable");
+		};
+		MessageHandler handler = this.handler(1, false, this::request, failingOutput);
+
+		handler.handleMessage(this.message("first"));
+		this.release("first");
+
+		ErrorMessage error = (ErrorMessage) this.errors.receive(5000);
+		assertThat(error, notNullValue());
+		assertThat(error.getPayload(), instanceOf(MessageDeliveryException.class));
+		assertThat(new String((byte[]) ((MessagingException) error.getPayload()).getFailedMessage().getPayload(),
+				StandardCharsets.UTF_8), is("first"));
+	}
+
+	@Test
+	public void testConcurrencyLimit() throws InterruptedException {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		MessageHandler handler = this.handler(2, false, message -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				return this.request(message);
+			}
+			finally {
+				inFlight.decrementAndGet();
+			}
+		}, this.output);
+
+		handler.handleMessage(this.message("first"));
+		handler.handleMessage(this.message("second"));
+
+		// No permit left, the input thread waits for a request to complete
+		Thread input = new Thread(() -> handler.handleMessage(this.message("third")));
+		input.start();
+		input.join(200);
+		assertThat(input.isAlive(), is(true));
+
+		this.release("first");
+		input.join(5000);
+		assertThat(input.isAlive(), is(false));
+
+		this.release("second");
+		this.release("third");
+		assertThat(this.payloads(3), containsInAnyOrder("first", "second", "third"));
+		assertThat(maxInFlight.get(), is(2));
+	}
+
+	private MessageHandler handler(int concurrency, boolean ordered, Function<Message<?>, Message<byte[]>> request,
+			MessageChannel output) {
+		TwitterConnectionProperties.Async async = new TwitterConnectionProperties.Async();
+		async.setEnabled(true);
+		async.setConcurrency(concurrency);
+		async.setOrdered(ordered);
+		return new AsyncRequestProcessor(async, this.executor, this.errors).asyncHandler(request, output);
+	}
+
+	private Message<byte[]> request(Message<?> message) {
+		String payload = (String) message.getPayload();
+		try {
+			this.latch(payload).await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return new GenericMessage<>(payload.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Message<?> message(String payload) {
+		this.latch(payload);
+		return new GenericMessage<>(payload);
+	}
+
+	private CountDownLatch latch(String payload) {
+		return this.latches.computeIfAbsent(payload, key -> new CountDownLatch(1));
+	}
+
+	private void release(String payload) {
+		this.latch(payload).countDown();
+	}
+
+	private List<String> payloads(int count) {
+		List<String> payloads = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Message<?> message = this.output.receive(5000);
+			assertThat(message, notNullValue());
+			payloads.add(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8));
+		}
+		return payloads;
+	}
+}
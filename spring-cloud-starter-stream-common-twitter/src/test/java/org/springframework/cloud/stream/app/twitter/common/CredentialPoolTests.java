@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import twitter4j.Query;
+import twitter4j.QueryResult;
+import twitter4j.RateLimitStatus;
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Christian Tzolov
+ */
+public class CredentialPoolTests {
+
+	@Test
+	public void testMostRemainingQuota() throws TwitterException {
+		Twitter first = mock(Twitter.class);
+		Twitter second = mock(Twitter.class);
+		QueryResult firstResult = result(10);
+		QueryResult secondResult = result(100);
+		when(first.search(any(Query.class))).thenReturn(firstResult);
+		when(second.search(any(Query.class))).thenReturn(secondResult);
+
+		Twitter pool = new CredentialPool(Arrays.asList(first, second), 60000).proxy();
+
+		// Unknown quotas, round-robin
+		pool.search(new Query());
+		pool.search(new Query());
+		verify(first, times(1)).search(any(Query.class));
+		verify(second, times(1)).search(any(Query.class));
+
+		// The second member has more remaining quota
+		assertThat(pool.search(new Query()), sameInstance(secondResult));
+		assertThat(pool.search(new Query()), sameInstance(secondResult));
+		verify(first, times(1)).search(any(Query.class));
+	}
+
+	@Test
+	public void testUnauthorizedIsolation() throws TwitterException {
+		Twitter first = mock(Twitter.class);
+		Twitter second = mock(Twitter.class);
+		TwitterException unauthorized = mock(TwitterException.class);
+		when(unauthorized.getStatusCode()).thenReturn(401);
+		QueryResult result = result(100);
+		when(first.search(any(Query.class))).thenThrow(unauthorized);
+		when(second.search(any(Query.class))).thenReturn(result);
+
+		Twitter pool = new CredentialPool(Arrays.asList(first, second), 60000).proxy();
+
+		assertThat(pool.search(new Query()), sameInstance(result));
+		assertThat(pool.search(new Query()), sameInstance(result));
+		assertThat(pool.search(new Query()), sameInstance(result));
+		verify(first, times(1)).search(any(Query.class));
+		verify(second, times(3)).search(any(Query.class));
+	}
+
+	@Test(expected = TwitterException.class)
+	public void testNotIsolatedFailure() throws TwitterException {
+		Twitter first = mock(Twitter.class);
+		Twitter second = mock(Twitter.class);
+		TwitterException forbidden = mock(TwitterException.class);
+		when(forbidden.getStatusCode()).thenReturn(403);
+		when(first.search(any(Query.class))).thenThrow(forbidden);
+		when(second.search(any(Query.class))).thenThrow(forbidden);
+
+		try {
+			new CredentialPool(Arrays.asList(first, second), 60000).proxy().search(new Query());
+		}
+		finally {
+			verify(first, times(1)).search(any(Query.class));
+			verify(second, never()).search(any(Query.class));
+		}
+	}
+
+	private QueryResult result(int remaining) {
+		RateLimitStatus status = mock(RateLimitStatus.class);
+		when(status.getRemaining()).thenReturn(remaining);
+		when(status.getResetTimeInSeconds()).thenReturn((int) (System.currentTimeMillis() / 1000) + 900);
+		QueryResult result = mock(QueryResult.class);
+		when(result.getRateLimitStatus()).thenReturn(status);
+		return result;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import twitter4j.Query;
+import twitter4j.Twitter;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Christian Tzolov
+ */
+public class EndpointConcurrencyLimiterTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testNotLimited() {
+		Twitter twitter = mock(Twitter.class);
+
+		assertThat(new EndpointConcurrencyLimiter(Collections.emptyMap()).proxy(twitter), sameInstance(twitter));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidConcurrency() {
+		new EndpointConcurrencyLimiter(Collections.singletonMap("search", 0));
+	}
+
+	@Test
+	public void testEndpointLimit() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+
+		Twitter twitter = mock(Twitter.class);
+		when(twitter.search(any(Query.class))).thenAnswer(invocation -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				release.await(5, TimeUnit.SECONDS);
+				return null;
+			}
+			finally {
+				inFlight.decrementAndGet();
+			}
+		});
+
+		Twitter limited = new EndpointConcurrencyLimiter(Collections.singletonMap("search", 2)).proxy(twitter);
+
+		Future<?> first = this.executor.submit(() -> limited.search(new Query()));
+		Future<?> second = this.executor.submit(() -> limited.search(new Query()));
+		Future<?> third = this.executor.submit(() -> limited.search(new Query()));
+		Thread.sleep(200);
+		assertThat(inFlight.get(), is(2));
+
+		// Other endpoints are not held back by the limited one
+		limited.showUser(1L);
+		verify(twitter).showUser(anyLong());
+
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+		second.get(5, TimeUnit.SECONDS);
+		third.get(5, TimeUnit.SECONDS);
+		assertThat(maxInFlight.get(), is(2));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class ExpressionEvaluatorTests {
+
+	// More than the interpreted evaluations after which the MIXED mode compiles an expression.
+	private static final int WARM_UP = 150;
+
+	private static final String TWEET = "{\"id\":1,\"text\":\"Spring Cloud Stream\",\"user\":{\"screen_name\":\"john\"}}";
+
+	private final SpelExpressionParser parser = new SpelExpressionParser();
+
+	private final ExpressionEvaluator evaluator = new ExpressionEvaluator(new ObjectMapper());
+
+	private final Message<String> message = MessageBuilder.withPayload(TWEET).setHeader("count", 5).build();
+
+	@Test
+	public void testCompiledExpression() {
+		Expression expression = this.parser.parseExpression("payload.length()");
+
+		for (int i = 0; i < WARM_UP; i++) {
+			assertThat(this.evaluator.getValue(expression, this.message, Integer.class),
+					is(interpreted(expression, this.message, Integer.class)));
+		}
+
+		assertThat(compiledAst(this.evaluator.compiled(expression, this.message)), notNullValue());
+		assertThat(this.evaluator.getValue(expression, this.message, Integer.class), is(TWEET.length()));
+	}
+
+	@Test
+	public void testInterpretedFallback() {
+		// The collection selection is not compilable.
+		Expression expression = this.parser.parseExpression("{1, 2, headers.count}.?[#this > 1].size()");
+
+		for (int i = 0; i < WARM_UP; i++) {
+			assertThat(this.evaluator.getValue(expression, this.message, Integer.class),
+					is(interpreted(expression, this.message, Integer.class)));
+		}
+
+		assertThat(compiledAst(this.evaluator.compiled(expression, this.message)), nullValue());
+		assertThat(this.evaluator.getValue(expression, this.message, Integer.class), is(2));
+	}
+
+	@Test
+	public void testCompiledPerRootClass() {
+		Expression expression = this.parser.parseExpression("headers.count");
+		MessageBinding binding = this.evaluator.bind(this.message);
+
+		// Alternating root classes must not share (and keep invalidating) a single compiled expression.
+		for (int i = 0; i < WARM_UP; i++) {
+			assertThat(this.evaluator.getValue(expression, this.message, Integer.class), is(5));
+			assertThat(binding.getValue(expression, Integer.class), is(5));
+		}
+
+		Expression messageExpression = this.evaluator.compiled(expression, this.message);
+		Expression bindingExpression = this.evaluator.compiled(expression,
+				new MessageBinding.Root(new ObjectMapper(), this.message));
+		assertThat(messageExpression, not(sameInstance(bindingExpression)));
+		assertThat(compiledAst(messageExpression), notNullValue());
+		assertThat(compiledAst(bindingExpression), notNullValue());
+	}
+
+	@Test
+	public void testJsonTree() {
+		Expression expression = this.parser.parseExpression("json.user.screen_name");
+		MessageBinding binding = this.evaluator.bind(this.message);
+
+		for (int i = 0; i < WARM_UP; i++) {
+			assertThat(binding.getValue(expression, String.class), is("john"));
+		}
+	}
+
+	private static <T> T interpreted(Expression expression, Object rootObject, Class<T> type) {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.addPropertyAccessor(new MapAccessor());
+		return expression.getValue(context, rootObject, type);
+	}
+
+	private static Object compiledAst(Expression expression) {
+		return ReflectionTestUtils.getField(expression, "compiledAst");
+	}
+}
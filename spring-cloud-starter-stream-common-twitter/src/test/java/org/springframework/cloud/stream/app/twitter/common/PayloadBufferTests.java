@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class PayloadBufferTests {
+
+	@Test
+	public void testReuse() {
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		buffer.write(new byte[] { 1, 2, 3 }, 0, 3);
+		assertThat(buffer.toByteArray(), is(new byte[] { 1, 2, 3 }));
+		buffer.release();
+
+		PayloadBuffer reused = PayloadBuffer.acquire();
+		try {
+			assertThat(reused, sameInstance(buffer));
+			assertThat(reused.size(), is(0));
+		}
+		finally {
+			reused.release();
+		}
+	}
+
+	@Test
+	public void testNestedAcquire() {
+		PayloadBuffer outer = PayloadBuffer.acquire();
+		try {
+			PayloadBuffer inner = PayloadBuffer.acquire();
+			try {
+				assertThat(inner, not(sameInstance(outer)));
+			}
+			finally {
+				inner.release();
+			}
+		}
+		finally {
+			outer.release();
+		}
+	}
+
+	@Test
+	public void testReuseAcrossThreads() throws Exception {
+		PayloadBuffer released = CompletableFuture.supplyAsync(() -> {
+			PayloadBuffer buffer = PayloadBuffer.acquire();
+			buffer.release();
+			return buffer;
+		}).get();
+
+		PayloadBuffer reused = PayloadBuffer.acquire();
+		try {
+			assertThat(reused, sameInstance(released));
+		}
+		finally {
+			reused.release();
+		}
+	}
+
+	@Test
+	public void testDoubleReleaseIsIgnored() {
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		buffer.release();
+		buffer.release();
+
+		PayloadBuffer first = PayloadBuffer.acquire();
+		PayloadBuffer second = PayloadBuffer.acquire();
+		try {
+			assertThat(first, sameInstance(buffer));
+			assertThat(second, not(sameInstance(first)));
+		}
+		finally {
+			second.release();
+			first.release();
+		}
+	}
+
+	@Test
+	public void testGrowth() {
+		byte[] payload = new byte[100 * 1024];
+		for (int i = 0; i < payload.length; i++) {
+			payload[i] = (byte) i;
+		}
+
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		try {
+			buffer.write(payload, 0, 10);
+			buffer.write(payload, 10, payload.length - 11);
+			buffer.write(payload[payload.length - 1]);
+
+			assertThat(buffer.size(), is(payload.length));
+			assertThat(Arrays.equals(buffer.toByteArray(), payload), is(true));
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	@Test
+	public void testLargeBufferIsShrunkOnRelease() {
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		buffer.write(new byte[2 * 1024 * 1024], 0, 2 * 1024 * 1024);
+		assertThat(buffer.capacity() >= 2 * 1024 * 1024, is(true));
+		buffer.release();
+
+		PayloadBuffer reused = PayloadBuffer.acquire();
+		try {
+			assertThat(reused.capacity() <= 1024 * 1024, is(true));
+		}
+		finally {
+			reused.release();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class PayloadEncoderTests {
+
+	private static final String RAW_STATUS = "{\"id\":1051126412069601280,\"text\":\"Spring Cloud Stream \\u00e9\","
+			+ "\"user\":{\"screen_name\":\"john\"},\"coordinates\":null,\"retweeted\":false,\"favorite_count\":1.5}";
+
+	private final ObjectMapper jsonMapper = new ObjectMapper();
+
+	@Test
+	public void testJsonRoundTrip() throws IOException {
+		this.assertRoundTrip(PayloadEncoder.Encoding.json, this.jsonMapper);
+	}
+
+	@Test
+	public void testSmileRoundTrip() throws IOException {
+		this.assertRoundTrip(PayloadEncoder.Encoding.smile, new ObjectMapper(new SmileFactory()));
+	}
+
+	@Test
+	public void testCborRoundTrip() throws IOException {
+		this.assertRoundTrip(PayloadEncoder.Encoding.cbor, new ObjectMapper(new CBORFactory()));
+	}
+
+	@Test
+	public void testContentTypes() {
+		assertThat(new PayloadEncoder(this.jsonMapper, PayloadEncoder.Encoding.json).getContentType(),
+				is("application/json"));
+		assertThat(new PayloadEncoder(this.jsonMapper, PayloadEncoder.Encoding.smile).getContentType(),
+				is("application/x-jackson-smile"));
+		assertThat(new PayloadEncoder(this.jsonMapper, PayloadEncoder.Encoding.cbor).getContentType(),
+				is("application/cbor"));
+	}
+
+	private void assertRoundTrip(PayloadEncoder.Encoding encoding, ObjectMapper decoder) throws IOException {
+		PayloadEncoder encoder = new PayloadEncoder(this.jsonMapper, encoding);
+
+		Map<String, Object> value = new LinkedHashMap<>();
+		value.put("id", 1051126412069601280L);
+		value.put("text", "Spring Cloud Stream \u00e9");
+		value.put("hashtags", Arrays.asList("spring", "cloud"));
+		value.put("place", null);
+
+		assertThat(decoder.readTree(encoder.encode(value)), is(this.jsonMapper.valueToTree(value)));
+
+		JsonNode expectedRaw = this.jsonMapper.readTree(RAW_STATUS);
+		assertThat(decoder.readTree(encoder.encodeRaw(RAW_STATUS)), is(expectedRaw));
+	}
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+import twitter4j.Query;
+import twitter4j.QueryResult;
+import twitter4j.RateLimitStatus;
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Christian Tzolov
+ */
+public class RateLimitTrackerTests {
+
+	@Test
+	public void testUnknownStatus() {
+		RateLimitTracker tracker = new RateLimitTracker(new TwitterConnectionProperties.RateLimit());
+
+		assertThat(tracker.quotaDelay("search"), is(0L));
+		assertThat(tracker.pollDelay("search", 11000), is(11000L));
+	}
+
+	@Test
+	public void testPacing() throws TwitterException {
+		RateLimitTracker tracker = new RateLimitTracker(new TwitterConnectionProperties.RateLimit());
+		track(tracker, 100, 600);
+
+		assertThat(tracker.quotaDelay("search"), is(0L));
+		assertThat(tracker.pollDelay("search", 11000), allOf(greaterThan(5000L), lessThanOrEqualTo(6000L)));
+	}
+
+	@Test
+	public void testMinPollInterval() throws TwitterException {
+		TwitterConnectionProperties.RateLimit rateLimit = new TwitterConnectionProperties.RateLimit();
+		rateLimit.setMinPollInterval(2000);
+		RateLimitTracker tracker = new RateLimitTracker(rateLimit);
+		track(tracker, 1000, 60);
+
+		assertThat(tracker.pollDelay("search", 11000), is(2000L));
+	}
+
+	@Test
+	public void testExhaustedQuota() throws TwitterException {
+		RateLimitTracker tracker = new RateLimitTracker(new TwitterConnectionProperties.RateLimit());
+		track(tracker, 0, 60);
+
+		assertThat(tracker.quotaDelay("search"), allOf(greaterThan(59000L), lessThanOrEqualTo(60000L)));
+		assertThat(tracker.pollDelay("search", 11000), allOf(greaterThan(59000L), lessThanOrEqualTo(60000L)));
+		assertThat(tracker.quotaDelay("getFollowersList"), is(0L));
+	}
+
+	@Test
+	public void testPacingDisabled() throws TwitterException {
+		TwitterConnectionProperties.RateLimit rateLimit = new TwitterConnectionProperties.RateLimit();
+		rateLimit.setPacing(false);
+		RateLimitTracker tracker = new RateLimitTracker(rateLimit);
+		track(tracker, 100, 600);
+
+		assertThat(tracker.pollDelay("search", 11000), is(11000L));
+	}
+
+	@Test
+	public void testExhaustedCredentialsDoNotDelayThePool() throws TwitterException {
+		TwitterConnectionProperties.RateLimit rateLimit = new TwitterConnectionProperties.RateLimit();
+		rateLimit.setMinPollInterval(0);
+		RateLimitTracker tracker = new RateLimitTracker(rateLimit);
+
+		Twitter exhausted = mock(Twitter.class);
+		Twitter available = mock(Twitter.class);
+		QueryResult exhaustedResult = result(0, 60);
+		QueryResult availableResult = result(100, 60);
+		when(exhausted.search(any(Query.class))).thenReturn(exhaustedResult);
+		when(available.search(any(Query.class))).thenReturn(availableResult);
+
+		Twitter twitter = tracker.throttle(new CredentialPool(
+				Arrays.asList(tracker.track(exhausted), tracker.track(available)), 60000).proxy());
+
+		// Unknown quotas, round-robin
+		twitter.search(new Query());
+		twitter.search(new Query());
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 3; i++) {
+			twitter.search(new Query());
+		}
+		assertThat(System.currentTimeMillis() - start, lessThan(1000L));
+		verify(exhausted, times(1)).search(any(Query.class));
+		verify(available, times(4)).search(any(Query.class));
+
+		// Only the remaining quota of the available credentials is left
+		assertThat(tracker.quotaDelay("search"), is(0L));
+		assertThat(tracker.pollDelay("search", 11000), allOf(greaterThan(500L), lessThanOrEqualTo(600L)));
+	}
+
+	@Test
+	public void testAggregateQuota() throws TwitterException {
+		TwitterConnectionProperties.RateLimit rateLimit = new TwitterConnectionProperties.RateLimit();
+		rateLimit.setMinPollInterval(0);
+		RateLimitTracker tracker = new RateLimitTracker(rateLimit);
+
+		Twitter first = mock(Twitter.class);
+		Twitter second = mock(Twitter.class);
+		QueryResult firstResult = result(100, 600);
+		QueryResult secondResult = result(100, 600);
+		when(first.search(any(Query.class))).thenReturn(firstResult);
+		when(second.search(any(Query.class))).thenReturn(secondResult);
+
+		tracker.track(first).search(new Query());
+		assertThat(tracker.pollDelay("search", 11000), allOf(greaterThan(5000L), lessThanOrEqualTo(6000L)));
+
+		// Twice the quota, half the delay
+		tracker.track(second).search(new Query());
+		assertThat(tracker.pollDelay("search", 11000), allOf(greaterThan(2500L), lessThanOrEqualTo(3000L)));
+	}
+
+	@Test
+	public void testAllCredentialsExhausted() throws TwitterException {
+		RateLimitTracker tracker = new RateLimitTracker(new TwitterConnectionProperties.RateLimit());
+
+		Twitter first = mock(Twitter.class);
+		Twitter second = mock(Twitter.class);
+		QueryResult firstResult = result(0, 60);
+		QueryResult secondResult = result(0, 30);
+		when(first.search(any(Query.class))).thenReturn(firstResult);
+		when(second.search(any(Query.class))).thenReturn(secondResult);
+
+		tracker.track(first).search(new Query());
+		tracker.track(second).search(new Query());
+
+		// Held back until the first quota reset
+		assertThat(tracker.quotaDelay("search"), allOf(greaterThan(29000L), lessThanOrEqualTo(30000L)));
+		assertThat(tracker.pollDelay("search", 11000), allOf(greaterThan(29000L), lessThanOrEqualTo(30000L)));
+
+		// Credentials that have not called the endpoint yet have their full quota
+		tracker.track(mock(Twitter.class));
+		assertThat(tracker.quotaDelay("search"), is(0L));
+	}
+
+	@Test
+	public void testTriggerFollowsAggregateQuota() throws TwitterException {
+		TwitterConnectionProperties.RateLimit rateLimit = new TwitterConnectionProperties.RateLimit();
+		rateLimit.setMinPollInterval(0);
+		RateLimitTracker tracker = new RateLimitTracker(rateLimit);
+
+		Twitter exhausted = mock(Twitter.class);
+		Twitter first = mock(Twitter.class);
+		Twitter second = mock(Twitter.class);
+		QueryResult exhaustedResult = result(0, 600);
+		QueryResult firstResult = result(100, 600);
+		QueryResult secondResult = result(100, 600);
+		when(exhausted.search(any(Query.class))).thenReturn(exhaustedResult);
+		when(first.search(any(Query.class))).thenReturn(firstResult);
+		when(second.search(any(Query.class))).thenReturn(secondResult);
+
+		Twitter twitter = tracker.throttle(new CredentialPool(Arrays.asList(
+				tracker.track(exhausted), tracker.track(first), tracker.track(second)), 60000).proxy());
+		Trigger trigger = tracker.trigger("search", 11000);
+
+		// Polls at the poll interval until the first response
+		Date lastCompletion = new Date();
+		assertThat(nextPollDelay(trigger, lastCompletion), is(11000L));
+
+		for (int i = 0; i < 3; i++) {
+			twitter.search(new Query());
+		}
+
+		// The exhausted credentials neither block nor slow down the poller, the 200 calls left last 600 seconds
+		assertThat(tracker.quotaDelay("search"), is(0L));
+		assertThat(nextPollDelay(trigger, lastCompletion), allOf(greaterThan(2500L), lessThanOrEqualTo(3000L)));
+	}
+
+	@Test
+	public void testMaxWaitFailsFast() throws TwitterException {
+		TwitterConnectionProperties.RateLimit rateLimit = new TwitterConnectionProperties.RateLimit();
+		rateLimit.setMaxWait(1000);
+		RateLimitTracker tracker = new RateLimitTracker(rateLimit);
+
+		Twitter exhausted = mock(Twitter.class);
+		QueryResult exhaustedResult = result(0, 60);
+		when(exhausted.search(any(Query.class))).thenReturn(exhaustedResult);
+		Twitter twitter = tracker.throttle(tracker.track(exhausted));
+		twitter.search(new Query());
+
+		long start = System.currentTimeMillis();
+		try {
+			twitter.search(new Query());
+			fail("TwitterException expected");
+		}
+		catch (TwitterException e) {
+			assertThat(e.exceededRateLimitation(), is(true));
+		}
+		assertThat(System.currentTimeMillis() - start, lessThan(1000L));
+		verify(exhausted, times(1)).search(any(Query.class));
+	}
+
+	@Test
+	public void testRetryFailsFastWithTheRateLimitError() throws TwitterException {
+		TwitterConnectionProperties.RateLimit rateLimit = new TwitterConnectionProperties.RateLimit();
+		rateLimit.setMaxWait(1000);
+		RateLimitTracker tracker = new RateLimitTracker(rateLimit);
+
+		Twitter exhausted = mock(Twitter.class);
+		TwitterException rateLimited = mock(TwitterException.class);
+		RateLimitStatus status = status(0, 60);
+		when(rateLimited.exceededRateLimitation()).thenReturn(true);
+		when(rateLimited.getRateLimitStatus()).thenReturn(status);
+		when(exhausted.search(any(Query.class))).thenThrow(rateLimited);
+
+		try {
+			tracker.throttle(tracker.track(exhausted)).search(new Query());
+			fail("TwitterException expected");
+		}
+		catch (TwitterException e) {
+			assertThat(e, sameInstance(rateLimited));
+		}
+		verify(exhausted, times(1)).search(any(Query.class));
+	}
+
+	@Test
+	public void testInterruptedWaitSkipsTheCall() throws TwitterException {
+		RateLimitTracker tracker = new RateLimitTracker(new TwitterConnectionProperties.RateLimit());
+
+		Twitter exhausted = mock(Twitter.class);
+		QueryResult exhaustedResult = result(0, 60);
+		when(exhausted.search(any(Query.class))).thenReturn(exhaustedResult);
+		Twitter twitter = tracker.throttle(tracker.track(exhausted));
+		twitter.search(new Query());
+
+		Thread.currentThread().interrupt();
+		try {
+			twitter.search(new Query());
+			fail("TwitterException expected");
+		}
+		catch (TwitterException e) {
+			assertThat(e.getCause(), instanceOf(InterruptedException.class));
+			assertThat(Thread.interrupted(), is(true));
+		}
+		verify(exhausted, times(1)).search(any(Query.class));
+	}
+
+	private void track(RateLimitTracker tracker, int remaining, int secondsUntilReset) throws TwitterException {
+		Twitter twitter = mock(Twitter.class);
+		QueryResult result = result(remaining, secondsUntilReset);
+		when(twitter.search(any(Query.class))).thenReturn(result);
+		tracker.track(twitter).search(new Query());
+	}
+
+	private long nextPollDelay(Trigger trigger, Date lastCompletion) {
+		SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+		triggerContext.update(lastCompletion, lastCompletion, lastCompletion);
+		return trigger.nextExecutionTime(triggerContext).getTime() - lastCompletion.getTime();
+	}
+
+	private QueryResult result(int remaining, int secondsUntilReset) {
+		RateLimitStatus status = status(remaining, secondsUntilReset);
+		QueryResult result = mock(QueryResult.class);
+		when(result.getRateLimitStatus()).thenReturn(status);
+		return result;
+	}
+
+	private RateLimitStatus status(int remaining, int secondsUntilReset) {
+		RateLimitStatus status = mock(RateLimitStatus.class);
+		when(status.getRemaining()).thenReturn(remaining);
+		when(status.getResetTimeInSeconds()).thenReturn((int) (System.currentTimeMillis() / 1000) + secondsUntilReset);
+		return status;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import twitter4j.Status;
+import twitter4j.TwitterObjectFactory;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class RawJsonCaptureTests {
+
+	private static final String FIRST = "{\"id\":1051126412069601280,\"text\":\"first\"}";
+
+	private static final String SECOND = "{\"id\":1051126412069601280,\"text\":\"second\"}";
+
+	@Test
+	public void testRawJsonFromAnotherThread() throws Exception {
+		RawJsonCapture capture = new RawJsonCapture();
+
+		// Twitter4J registers the raw JSON of the created objects in its thread local, like on an API call.
+		Status status = capture.capture(TwitterObjectFactory.createStatus(FIRST));
+
+		String rawJson = CompletableFuture.supplyAsync(() -> capture.getRawJson(status)).get(5, TimeUnit.SECONDS);
+
+		assertThat(rawJson, is(FIRST));
+	}
+
+	@Test
+	public void testEqualObjectsKeepTheirOwnRawJson() throws Exception {
+		RawJsonCapture capture = new RawJsonCapture();
+
+		Status first = capture.capture(TwitterObjectFactory.createStatus(FIRST));
+		Status second = capture.capture(TwitterObjectFactory.createStatus(SECOND));
+
+		// Twitter4J statuses are equal by ID.
+		assertThat(first.equals(second), is(true));
+		assertThat(capture.getRawJson(first), is(FIRST));
+		assertThat(capture.getRawJson(second), is(SECOND));
+		assertThat(capture.size(), is(2));
+	}
+
+	@Test
+	public void testNotCaptured() throws Exception {
+		RawJsonCapture capture = new RawJsonCapture();
+
+		Status status = TwitterObjectFactory.createStatus(FIRST);
+
+		assertThat(capture.getRawJson(status), nullValue());
+		assertThat(capture.getRawJson(null), nullValue());
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class TtlCacheTests {
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		TtlCache<Long, String> cache = new TtlCache<>(2, 60000, 60000);
+		cache.put(1L, "one");
+		cache.put(2L, "two");
+		cache.get(1L);
+		cache.put(3L, "three");
+
+		assertThat(cache.get(1L).getValue(), is("one"));
+		assertThat(cache.get(2L), nullValue());
+		assertThat(cache.get(3L).getValue(), is("three"));
+		assertThat(cache.size(), is(2));
+		assertThat(cache.getEvictionCount(), is(1L));
+		assertThat(cache.getHitCount(), is(3L));
+		assertThat(cache.getMissCount(), is(1L));
+	}
+
+	@Test
+	public void testExpiration() throws InterruptedException {
+		TtlCache<Long, String> cache = new TtlCache<>(10, 50, 60000);
+		cache.put(1L, "one");
+		assertThat(cache.get(1L), notNullValue());
+
+		Thread.sleep(100);
+
+		assertThat(cache.get(1L), nullValue());
+		assertThat(cache.size(), is(0));
+	}
+
+	@Test
+	public void testNegativeCaching() {
+		TtlCache<Long, String> cache = new TtlCache<>(10, 60000, 60000);
+		cache.putAbsent(666L);
+
+		assertThat(cache.get(666L), notNullValue());
+		assertThat(cache.get(666L).getValue(), nullValue());
+
+		TtlCache<Long, String> noNegativeCache = new TtlCache<>(10, 60000, 0);
+		noNegativeCache.putAbsent(666L);
+
+		assertThat(noNegativeCache.get(666L), nullValue());
+	}
+}
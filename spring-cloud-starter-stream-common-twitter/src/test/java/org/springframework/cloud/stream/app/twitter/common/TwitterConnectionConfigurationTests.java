@@ -1,19 +1,37 @@
 package org.springframework.cloud.stream.app.twitter.common;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Function;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.collections4.map.HashedMap;
 import org.junit.Test;
+import twitter4j.HttpClientConfiguration;
+import twitter4j.Status;
+import twitter4j.TwitterObjectFactory;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.GenericMessage;
 import org.springframework.util.MimeTypeUtils;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 /**
  * @author Christian Tzolov
@@ -73,4 +91,119 @@ public class TwitterConnectionConfigurationTests {
 				is(MimeTypeUtils.APPLICATION_JSON_VALUE));
 	}
 
+	@Test
+	public void testCharsetAwareContentType() {
+		Function<Message<?>, Message<?>> function =
+				new TwitterConnectionConfiguration().stringifyPayload();
+
+		String payload = "Caf\u00e9";
+		Map<String, Object> headers = new HashedMap<>();
+		headers.put(MessageHeaders.CONTENT_TYPE, "text/plain;charset=ISO-8859-1");
+		GenericMessage<byte[]> inMessage = new GenericMessage<>(payload.getBytes(StandardCharsets.ISO_8859_1), headers);
+
+		Message<?> outMessage = function.apply(inMessage);
+
+		assertThat(outMessage.getPayload(), is(payload));
+		assertThat(outMessage.getPayload() == outMessage.getPayload(), is(true));
+	}
+
+	@Test
+	public void testRawJsonComposition() throws IOException {
+		PayloadEncoder encoder = new PayloadEncoder(new ObjectMapper(), PayloadEncoder.Encoding.json);
+
+		byte[] payload = encoder.encodeRaw(Arrays.asList("{\"id\":1,\"text\":\"a \\\"b\\\"\"}", "{\"id\":2}"));
+
+		assertThat(new String(payload), is("[{\"id\":1,\"text\":\"a \\\"b\\\"\"},{\"id\":2}]"));
+		assertThat(new String(encoder.encodeRaw("{\"id\":3}")), is("{\"id\":3}"));
+	}
+
+	@Test
+	public void testManagedRawJsonArray() throws Exception {
+		TwitterConnectionConfiguration configuration = new TwitterConnectionConfiguration();
+		ObjectMapper mapper = new ObjectMapper();
+		PayloadEncoder encoder = new PayloadEncoder(mapper, PayloadEncoder.Encoding.json);
+		RawJsonCapture rawJsonCapture = new RawJsonCapture();
+
+		Function<Object, Message<byte[]>> managedJson = configuration.managedJson(new TwitterConnectionProperties(),
+				configuration.rawJsonExtractor(rawJsonCapture), configuration.json(encoder), encoder);
+
+		List<Status> statuses = Arrays.asList(
+				rawJsonCapture.capture(TwitterObjectFactory.createStatus("{\"id\":1,\"text\":\"first\"}")),
+				rawJsonCapture.capture(TwitterObjectFactory.createStatus("{\"id\":2,\"text\":\"second\"}")));
+
+		Message<byte[]> message = managedJson.apply(statuses);
+
+		// A JSON array of the raw JSON objects, not of JSON strings.
+		JsonNode payload = mapper.readTree(message.getPayload());
+		assertThat(payload.isArray(), is(true));
+		assertThat(payload.size(), is(2));
+		assertThat(payload.get(0).isObject(), is(true));
+		assertThat(payload.get(0).get("text").asText(), is("first"));
+		assertThat(payload.get(1).get("id").asLong(), is(2L));
+		assertThat(message.getHeaders().get(MessageHeaders.CONTENT_TYPE), is(MimeTypeUtils.APPLICATION_JSON_VALUE));
+	}
+
+	@Test
+	public void testHttpClientSettings() {
+		TwitterConnectionProperties properties = new TwitterConnectionProperties();
+		properties.getHttp().setConnectTimeout(1000);
+		properties.getHttp().setReadTimeout(2000);
+		properties.getHttp().setRetryCount(3);
+		properties.getHttp().setGzip(false);
+
+		HttpClientConfiguration http = new TwitterConnectionConfiguration().toConfigurationBuilder()
+				.apply(properties).build().getHttpClientConfiguration();
+
+		assertThat(http.getHttpConnectionTimeout(), is(1000));
+		assertThat(http.getHttpReadTimeout(), is(2000));
+		assertThat(http.getHttpRetryCount(), is(3));
+		assertThat(http.isGZIPEnabled(), is(false));
+	}
+
+	@Test
+	public void testPlatformThreadsRequestExecutor() throws Exception {
+		TwitterConnectionProperties properties = new TwitterConnectionProperties();
+		properties.getAsync().setConcurrency(3);
+
+		ExecutorService executor = new TwitterConnectionConfiguration().twitterRequestExecutor(properties);
+		try {
+			assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize(), is(3));
+			assertThat(executor.submit(() -> Thread.currentThread().getName()).get(), startsWith("twitter-request-"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testVirtualThreadsRequestExecutorFallback() throws Exception {
+		TwitterConnectionProperties properties = new TwitterConnectionProperties();
+		properties.getAsync().setVirtualThreads(true);
+		properties.getAsync().setConcurrency(3);
+		boolean virtualThreadsSupported = Arrays.stream(Executors.class.getMethods())
+				.anyMatch(method -> method.getName().equals("newVirtualThreadPerTaskExecutor"));
+
+		ExecutorService executor = new TwitterConnectionConfiguration().twitterRequestExecutor(properties);
+		try {
+			// The platform threads pool on the JVMs without virtual threads
+			assertThat(executor instanceof ThreadPoolExecutor, is(!virtualThreadsSupported));
+			assertThat(executor.submit(() -> "done").get(), is("done"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSynchronousProcessorNeedsNoExecutor() {
+		ObjectProvider<ExecutorService> executor = mock(ObjectProvider.class);
+		ObjectProvider<MessageChannel> errorChannel = mock(ObjectProvider.class);
+
+		AsyncRequestProcessor processor = new TwitterConnectionConfiguration()
+				.asyncRequestProcessor(new TwitterConnectionProperties(), executor, errorChannel);
+
+		assertThat(processor, notNullValue());
+		verifyZeroInteractions(executor, errorChannel);
+	}
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.common;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class TwitterHttpClientEnvironmentPostProcessorTests {
+
+	private static final String[] KEYS = { "http.keepAlive", "http.maxConnections", "twitter4j.http.httpClient" };
+
+	private final Map<String, String> saved = new HashMap<>();
+
+	@Before
+	public void clearProperties() {
+		for (String key : KEYS) {
+			this.saved.put(key, System.getProperty(key));
+			System.clearProperty(key);
+		}
+	}
+
+	@After
+	public void restoreProperties() {
+		for (String key : KEYS) {
+			if (this.saved.get(key) != null) {
+				System.setProperty(key, this.saved.get(key));
+			}
+			else {
+				System.clearProperty(key);
+			}
+		}
+	}
+
+	@Test
+	public void testDefaults() {
+		new TwitterHttpClientEnvironmentPostProcessor().postProcessEnvironment(new StandardEnvironment(), null);
+
+		// Nothing configured, the JDK defaults apply.
+		assertThat(System.getProperty("http.keepAlive"), nullValue());
+		assertThat(System.getProperty("http.maxConnections"), nullValue());
+		assertThat(System.getProperty("twitter4j.http.httpClient"), nullValue());
+	}
+
+	@Test
+	public void testOnlyConfiguredSettings() {
+		new TwitterHttpClientEnvironmentPostProcessor().postProcessEnvironment(
+				environment(Collections.singletonMap("twitter.connection.http.maxConnections", "50")), null);
+
+		assertThat(System.getProperty("http.keepAlive"), nullValue());
+		assertThat(System.getProperty("http.maxConnections"), is("50"));
+		assertThat(System.getProperty("twitter4j.http.httpClient"), nullValue());
+	}
+
+	@Test
+	public void testConfiguredSettings() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("twitter.connection.http.keep-alive", "false");
+		properties.put("twitter.connection.http.max-connections", "50");
+		properties.put("twitter.connection.http.client", "my.HttpClient");
+
+		new TwitterHttpClientEnvironmentPostProcessor().postProcessEnvironment(environment(properties), null);
+
+		assertThat(System.getProperty("http.keepAlive"), is("false"));
+		assertThat(System.getProperty("http.maxConnections"), is("50"));
+		assertThat(System.getProperty("twitter4j.http.httpClient"), is("my.HttpClient"));
+	}
+
+	@Test
+	public void testExplicitSystemPropertiesTakePrecedence() {
+		System.setProperty("http.maxConnections", "5");
+
+		new TwitterHttpClientEnvironmentPostProcessor().postProcessEnvironment(
+				environment(Collections.singletonMap("twitter.connection.http.max-connections", "50")), null);
+
+		assertThat(System.getProperty("http.maxConnections"), is("5"));
+	}
+
+	private StandardEnvironment environment(Map<String, Object> properties) {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+		return environment;
+	}
+}
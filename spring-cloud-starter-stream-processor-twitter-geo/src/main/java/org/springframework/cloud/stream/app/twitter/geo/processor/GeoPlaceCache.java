@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.geo.processor;
+
+import java.util.List;
+
+import twitter4j.GeoLocation;
+import twitter4j.GeoQuery;
+import twitter4j.Place;
+import twitter4j.TwitterException;
+
+import org.springframework.cloud.stream.app.twitter.common.TtlCache;
+import org.springframework.util.StringUtils;
+
+/**
+ * Caches the places returned by the Geo APIs per geo query. The query location is quantized into a geohash cell, so
+ * the queries for nearby coordinates share the cached places.
+ *
+ * The cell size follows the query accuracy (in meters or feet), or if not set, the granularity: poi (100 m),
+ * neighborhood (1 km, the default), city (10 km), admin (100 km) and country (1000 km). The geohash precision with
+ * the largest cells not wider than this size is used. An explicit cell size takes precedence.
+ *
+ * @author Christian Tzolov
+ */
+public class GeoPlaceCache {
+
+	private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+	/**
+	 * Approximate geohash cell width (in meters, at the equator) per precision, starting from precision 1.
+	 */
+	private static final double[] CELL_WIDTHS = { 5000000, 1250000, 156000, 39100, 4890, 1220, 153, 38.2, 4.77,
+			1.19, 0.149, 0.0372 };
+
+	private static final double FEET_TO_METERS = 0.3048;
+
+	@FunctionalInterface
+	public interface Lookup {
+		List<Place> apply(GeoQuery geoQuery) throws TwitterException;
+	}
+
+	private final boolean enabled;
+
+	private final double cellSize;
+
+	private final TtlCache<String, List<Place>> places;
+
+	public GeoPlaceCache(TwitterGeoProcessorProperties.Cache cache) {
+		this.enabled = cache.isEnabled();
+		this.cellSize = cache.getCellSize();
+		this.places = new TtlCache<>(cache.getMaxSize(), cache.getTtl(), cache.getTtl());
+	}
+
+	/**
+	 * @param geoQuery Geo query to resolve.
+	 * @param lookup Geo API call, used on cache miss.
+	 * @return the cached or the looked up places.
+	 */
+	public List<Place> get(GeoQuery geoQuery, Lookup lookup) throws TwitterException {
+		if (!this.enabled) {
+			return lookup.apply(geoQuery);
+		}
+
+		String key = this.key(geoQuery);
+		TtlCache.Entry<List<Place>> entry = this.places.get(key);
+		if (entry != null) {
+			return entry.getValue();
+		}
+
+		List<Place> result = lookup.apply(geoQuery);
+		if (result != null) {
+			this.places.put(key, result);
+		}
+		return result;
+	}
+
+	String key(GeoQuery geoQuery) {
+		GeoLocation location = geoQuery.getLocation();
+		String cell = (location != null) ? geohash(location.getLatitude(), location.getLongitude(),
+				precision(this.cellSize(geoQuery))) : "";
+		return cell + "|" + geoQuery.getQuery() + "|" + geoQuery.getIp() + "|" + geoQuery.getGranularity()
+				+ "|" + geoQuery.getMaxResults();
+	}
+
+	private double cellSize(GeoQuery geoQuery) {
+		if (this.cellSize > 0) {
+			return this.cellSize;
+		}
+		if (StringUtils.hasText(geoQuery.getAccuracy())) {
+			String accuracy = geoQuery.getAccuracy().trim().toLowerCase();
+			try {
+				if (accuracy.endsWith("ft")) {
+					return Double.parseDouble(accuracy.substring(0, accuracy.length() - 2).trim()) * FEET_TO_METERS;
+				}
+				if (accuracy.endsWith("m")) {
+					return Double.parseDouble(accuracy.substring(0, accuracy.length() - 1).trim());
+				}
+				return Double.parseDouble(accuracy);
+			}
+			catch (NumberFormatException e) {
+				// Fall back to the granularity
+			}
+		}
+		String granularity = (geoQuery.getGranularity() != null) ? geoQuery.getGranularity() : "neighborhood";
+		switch (granularity) {
+		case "poi":
+			return 100;
+		case "city":
+			return 10000;
+		case "admin":
+			return 100000;
+		case "country":
+			return 1000000;
+		default:
+			return 1000;
+		}
+	}
+
+	/**
+	 * @return the precision of the largest geohash cells not wider than the cell size.
+	 */
+	static int precision(double cellSize) {
+		for (int i = 0; i < CELL_WIDTHS.length; i++) {
+			if (CELL_WIDTHS[i] <= cellSize) {
+				return i + 1;
+			}
+		}
+		return CELL_WIDTHS.length;
+	}
+
+	static String geohash(double latitude, double longitude, int precision) {
+		double minLat = -90, maxLat = 90;
+		double minLon = -180, maxLon = 180;
+
+		StringBuilder hash = new StringBuilder(precision);
+		boolean evenBit = true;
+		int bit = 0;
+		int index = 0;
+
+		while (hash.length() < precision) {
+			if (evenBit) {
+				double mid = (minLon + maxLon) / 2;
+				if (longitude >= mid) {
+					index = (index << 1) | 1;
+					minLon = mid;
+				}
+				else {
+					index = index << 1;
+					maxLon = mid;
+				}
+			}
+			else {
+				double mid = (minLat + maxLat) / 2;
+				if (latitude >= mid) {
+					index = (index << 1) | 1;
+					minLat = mid;
+				}
+				else {
+					index = index << 1;
+					maxLat = mid;
+				}
+			}
+			evenBit = !evenBit;
+
+			if (++bit == 5) {
+				hash.append(BASE32.charAt(index));
+				bit = 0;
+				index = 0;
+			}
+		}
+
+		return hash.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "GeoPlaceCache{" +
+				"places=" + this.places +
+				'}';
+	}
+}
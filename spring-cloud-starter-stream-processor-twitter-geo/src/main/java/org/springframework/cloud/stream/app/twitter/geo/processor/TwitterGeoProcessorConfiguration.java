@@ -25,12 +25,12 @@ import twitter4j.GeoQuery;
 import twitter4j.Place;
 
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.AsyncRequestProcessor;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Processor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.integration.dsl.IntegrationFlow;
-import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.messaging.Message;
 
 /**
@@ -44,11 +44,10 @@ public class TwitterGeoProcessorConfiguration {
 
 	@Bean
 	public IntegrationFlow geoQueryFlow(Processor processor, Function<Message<?>, GeoQuery> toGeoQuery,
-			Function<GeoQuery, List<Place>> places, Function<Object, Message<byte[]>> managedJson) {
+			Function<GeoQuery, List<Place>> places, Function<Object, Message<byte[]>> managedJson,
+			AsyncRequestProcessor asyncRequestProcessor) {
 
-		return IntegrationFlows
-				.from(processor.input())
-				.transform(Message.class, toGeoQuery.andThen(places).andThen(managedJson)::apply)
-				.channel(processor.output()).get();
+		return asyncRequestProcessor.flow(processor.input(),
+				toGeoQuery.andThen(places).andThen(managedJson), processor.output());
 	}
 }
@@ -31,6 +31,7 @@ import twitter4j.TwitterException;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -46,22 +47,23 @@ public class TwitterGeoProcessorFunctionConfiguration {
 	private static final Log logger = LogFactory.getLog(TwitterGeoProcessorFunctionConfiguration.class);
 
 	@Bean
-	public Function<Message<?>, GeoQuery> toGeoQuery(TwitterGeoProcessorProperties geoProperties) {
+	public Function<Message<?>, GeoQuery> toGeoQuery(TwitterGeoProcessorProperties geoProperties,
+			ExpressionEvaluator expressionEvaluator) {
 		return message -> {
 			String ip = null;
 			if (geoProperties.getSearch().getIp() != null) {
-				ip = geoProperties.getSearch().getIp().getValue(message, String.class);
+				ip = expressionEvaluator.getValue(geoProperties.getSearch().getIp(), message, String.class);
 			}
 			GeoLocation geoLocation = null;
 			if (geoProperties.getLocation().getLat() != null && geoProperties.getLocation().getLon() != null) {
-				Double lat = geoProperties.getLocation().getLat().getValue(message, Double.class);
-				Double lon = geoProperties.getLocation().getLon().getValue(message, Double.class);
+				Double lat = expressionEvaluator.getValue(geoProperties.getLocation().getLat(), message, Double.class);
+				Double lon = expressionEvaluator.getValue(geoProperties.getLocation().getLon(), message, Double.class);
 				geoLocation = new GeoLocation(lat, lon);
 			}
 
 			String query = null;
 			if (geoProperties.getSearch().getQuery() != null) {
-				query = geoProperties.getSearch().getQuery().getValue(message, String.class);
+				query = expressionEvaluator.getValue(geoProperties.getSearch().getQuery(), message, String.class);
 			}
 			GeoQuery geoQuery = new GeoQuery(query, ip, geoLocation);
 
@@ -73,12 +75,17 @@ public class TwitterGeoProcessorFunctionConfiguration {
 		};
 	}
 
+	@Bean
+	public GeoPlaceCache geoPlaceCache(TwitterGeoProcessorProperties geoProperties) {
+		return new GeoPlaceCache(geoProperties.getCache());
+	}
+
 	@Bean
 	@ConditionalOnProperty(name = "twitter.geo.search.type", havingValue = "search", matchIfMissing = true)
-	public Function<GeoQuery, List<Place>> searchPlaces(Twitter twitter) {
+	public Function<GeoQuery, List<Place>> searchPlaces(Twitter twitter, GeoPlaceCache geoPlaceCache) {
 		return geoQuery -> {
 			try {
-				return twitter.searchPlaces(geoQuery);
+				return geoPlaceCache.get(geoQuery, twitter::searchPlaces);
 			}
 			catch (TwitterException e) {
 				logger.error("Places Search failed!", e);
@@ -89,10 +96,10 @@ public class TwitterGeoProcessorFunctionConfiguration {
 
 	@Bean
 	@ConditionalOnProperty(name = "twitter.geo.search.type", havingValue = "reverse")
-	public Function<GeoQuery, List<Place>> reverseGeocode(Twitter twitter) {
+	public Function<GeoQuery, List<Place>> reverseGeocode(Twitter twitter, GeoPlaceCache geoPlaceCache) {
 		return geoQuery -> {
 			try {
-				return twitter.reverseGeoCode(geoQuery);
+				return geoPlaceCache.get(geoQuery, twitter::reverseGeoCode);
 			}
 			catch (TwitterException e) {
 				logger.error("Reverse Geocode failed!", e);
@@ -16,8 +16,11 @@
 
 package org.springframework.cloud.stream.app.twitter.geo.processor;
 
+import javax.validation.Valid;
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.expression.Expression;
@@ -52,6 +55,12 @@ public class TwitterGeoProcessorProperties {
 	 */
 	private Location location = new Location();
 
+	/**
+	 * Cache of the places returned by the Geo APIs.
+	 */
+	@Valid
+	private Cache cache = new Cache();
+
 	/**
 	 * Hints for the number of results to return. This does not guarantee that the number of results
 	 * returned will equal max_results, but instead informs how many "nearby" results to return.
@@ -96,6 +105,10 @@ public class TwitterGeoProcessorProperties {
 		this.location = location;
 	}
 
+	public Cache getCache() {
+		return cache;
+	}
+
 	public int getMaxResults() {
 		return maxResults;
 	}
@@ -179,6 +192,66 @@ public class TwitterGeoProcessorProperties {
 		}
 	}
 
+	public static class Cache {
+
+		/**
+		 * Cache the places returned by the Geo APIs. The queries for locations within the same cell share the
+		 * cached places.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time to live (in milliseconds) of the cached places.
+		 */
+		@Positive
+		private long ttl = 3600000;
+
+		/**
+		 * Maximum number of cached geo queries. When full, the least recently used entries are evicted.
+		 */
+		@Positive
+		private int maxSize = 10000;
+
+		/**
+		 * Size (in meters) of the location cells sharing the cached places. When 0 the size is derived from the
+		 * accuracy, or if not set, from the granularity.
+		 */
+		@PositiveOrZero
+		private double cellSize = 0;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(long ttl) {
+			this.ttl = ttl;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public double getCellSize() {
+			return cellSize;
+		}
+
+		public void setCellSize(double cellSize) {
+			this.cellSize = cellSize;
+		}
+	}
+
 	@AssertTrue(message = "Either the IP or the Location must be set")
 	public boolean isAtLeastOne() {
 		return this.getSearch().getIp() == null ^ this.location == null;
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.geo.processor;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import twitter4j.GeoLocation;
+import twitter4j.GeoQuery;
+import twitter4j.Place;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Christian Tzolov
+ */
+public class GeoPlaceCacheTests {
+
+	@Test
+	public void testGeohash() {
+		assertThat(GeoPlaceCache.geohash(57.64911, 10.40744, 11), is("u4pruydqqvj"));
+		assertThat(GeoPlaceCache.precision(100), is(8));
+		assertThat(GeoPlaceCache.precision(1000), is(7));
+		assertThat(GeoPlaceCache.precision(10000), is(5));
+	}
+
+	@Test
+	public void testNearbyLocationsShareCachedPlaces() throws Exception {
+		TwitterGeoProcessorProperties.Cache properties = new TwitterGeoProcessorProperties.Cache();
+		properties.setEnabled(true);
+		GeoPlaceCache cache = new GeoPlaceCache(properties);
+
+		List<Place> places = Collections.singletonList(mock(Place.class));
+		GeoPlaceCache.Lookup lookup = mock(GeoPlaceCache.Lookup.class);
+		when(lookup.apply(any(GeoQuery.class))).thenReturn(places);
+
+		GeoQuery first = new GeoQuery(new GeoLocation(52.37022, 4.89517));
+		GeoQuery nearby = new GeoQuery(new GeoLocation(52.37024, 4.89519));
+		GeoQuery distant = new GeoQuery(new GeoLocation(48.85661, 2.35222));
+
+		assertThat(cache.key(first), is(cache.key(nearby)));
+		assertThat(cache.key(first), not(cache.key(distant)));
+
+		assertThat(cache.get(first, lookup), is(places));
+		assertThat(cache.get(nearby, lookup), is(places));
+		verify(lookup, times(1)).apply(any(GeoQuery.class));
+
+		cache.get(distant, lookup);
+		verify(lookup, times(2)).apply(any(GeoQuery.class));
+	}
+}
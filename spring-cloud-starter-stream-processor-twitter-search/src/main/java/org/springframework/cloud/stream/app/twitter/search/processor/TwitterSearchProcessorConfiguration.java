@@ -26,6 +26,7 @@ import twitter4j.Status;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.AsyncRequestProcessor;
 import org.springframework.cloud.stream.app.twitter.common.OnMissingStreamFunctionDefinitionCondition;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Processor;
@@ -34,7 +35,6 @@ import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.integration.dsl.IntegrationFlow;
-import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.messaging.Message;
 
 
@@ -55,11 +55,9 @@ public class TwitterSearchProcessorConfiguration {
 	@Conditional(OnMissingStreamFunctionDefinitionCondition.class)
 	public IntegrationFlow defaultProcessorFlow(Processor processor,
 			Function<Message<?>, Query> query, Function<Query, List<Status>> search,
-			Function<Object, Message<byte[]>> managedJson) {
-		return IntegrationFlows
-				.from(processor.input())
-				.transform(Message.class, query.andThen(search).andThen(managedJson)::apply)
-				.channel(processor.output())
-				.get();
+			Function<Object, Message<byte[]>> managedJson,
+			AsyncRequestProcessor asyncRequestProcessor) {
+		return asyncRequestProcessor.flow(processor.input(),
+				query.andThen(search).andThen(managedJson), processor.output());
 	}
 }
@@ -28,6 +28,8 @@ import twitter4j.Twitter;
 import twitter4j.TwitterException;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
+import org.springframework.cloud.stream.app.twitter.common.MessageBinding;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -57,27 +59,20 @@ public class TwitterSearchProcessorFunctionConfiguration {
 	}
 
 	@Bean
-	public Function<Message<?>, Query> query(TwitterSearchProcessorProperties searchProperties) {
+	public Function<Message<?>, Query> query(TwitterSearchProcessorProperties searchProperties,
+			ExpressionEvaluator expressionEvaluator) {
 		return message -> {
+			MessageBinding binding = expressionEvaluator.bind(message);
+
 			Query query = new Query();
 
-			query.setQuery(searchProperties.getQuery().getValue(message, String.class));
+			query.setQuery(binding.getValue(searchProperties.getQuery(), String.class));
 
-			if (searchProperties.getCount() != null) {
-				query.count(searchProperties.getCount().getValue(message, int.class));
-			}
-			if (searchProperties.getMaxId() != null) {
-				query.maxId(searchProperties.getMaxId().getValue(message, long.class));
-			}
-			if (searchProperties.getSinceId() != null) {
-				query.sinceId(searchProperties.getSinceId().getValue(message, long.class));
-			}
-			if (searchProperties.getLang() != null) {
-				query.setLang(searchProperties.getLang().getValue(message, String.class));
-			}
-			if (searchProperties.getSince() != null) {
-				query.setSince(searchProperties.getSince().getValue(message, String.class));
-			}
+			binding.bind(searchProperties.getCount(), int.class, query::setCount);
+			binding.bind(searchProperties.getMaxId(), long.class, query::setMaxId);
+			binding.bind(searchProperties.getSinceId(), long.class, query::setSinceId);
+			binding.bind(searchProperties.getLang(), String.class, query::setLang);
+			binding.bind(searchProperties.getSince(), String.class, query::setSince);
 
 			if (searchProperties.getGeocode().getLatitude() != null
 					&& searchProperties.getGeocode().getLatitude() != null
@@ -85,9 +80,9 @@ public class TwitterSearchProcessorFunctionConfiguration {
 
 				query.setGeoCode(
 						new GeoLocation(
-								searchProperties.getGeocode().getLatitude().getValue(message, double.class),
-								searchProperties.getGeocode().getLongitude().getValue(message, double.class)),
-						searchProperties.getGeocode().getRadius().getValue(message, double.class),
+								binding.getValue(searchProperties.getGeocode().getLatitude(), double.class),
+								binding.getValue(searchProperties.getGeocode().getLongitude(), double.class)),
+						binding.getValue(searchProperties.getGeocode().getRadius(), double.class),
 						Query.KILOMETERS);
 			}
 
@@ -25,6 +25,7 @@ import twitter4j.Location;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.AsyncRequestProcessor;
 import org.springframework.cloud.stream.app.twitter.common.OnMissingStreamFunctionDefinitionCondition;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Processor;
@@ -33,7 +34,6 @@ import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.integration.dsl.IntegrationFlow;
-import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.messaging.Message;
 
 
@@ -55,12 +55,10 @@ public class TwitterTrendLocationProcessorConfiguration {
 	@Conditional(OnMissingStreamFunctionDefinitionCondition.class)
 	public IntegrationFlow defaultProcessorFlow(Processor processor,
 			Function<Message<?>, List<Location>> closestOrAvailableTrends,
-			Function<Object, Message<byte[]>> managedJson) {
+			Function<Object, Message<byte[]>> managedJson,
+			AsyncRequestProcessor asyncRequestProcessor) {
 
-		return IntegrationFlows
-				.from(processor.input())
-				.transform(Message.class, closestOrAvailableTrends.andThen(managedJson)::apply)
-				.channel(processor.output())
-				.get();
+		return asyncRequestProcessor.flow(processor.input(),
+				closestOrAvailableTrends.andThen(managedJson), processor.output());
 	}
 }
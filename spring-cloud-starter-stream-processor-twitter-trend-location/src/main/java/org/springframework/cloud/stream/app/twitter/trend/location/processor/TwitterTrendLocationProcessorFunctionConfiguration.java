@@ -27,6 +27,7 @@ import twitter4j.Twitter;
 import twitter4j.TwitterException;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -46,13 +47,14 @@ public class TwitterTrendLocationProcessorFunctionConfiguration {
 
 	@Bean
 	public Function<Message<?>, List<Location>> closestOrAvailableTrends(
-			TwitterTrendLocationProcessorProperties properties, Twitter twitter) {
+			TwitterTrendLocationProcessorProperties properties, Twitter twitter,
+			ExpressionEvaluator expressionEvaluator) {
 		return message -> {
 			try {
 				if (properties.getClosest().getLat() != null
 						&& properties.getClosest().getLon() != null) {
-					double lat = properties.getClosest().getLat().getValue(message, double.class);
-					double lon = properties.getClosest().getLon().getValue(message, double.class);
+					double lat = expressionEvaluator.getValue(properties.getClosest().getLat(), message, double.class);
+					double lon = expressionEvaluator.getValue(properties.getClosest().getLon(), message, double.class);
 
 					return twitter.getClosestTrends(new GeoLocation(lat, lon));
 				}
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import twitter4j.Trends;
 
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.AsyncRequestProcessor;
 import org.springframework.cloud.stream.app.twitter.common.OnMissingStreamFunctionDefinitionCondition;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Processor;
@@ -31,7 +32,6 @@ import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.integration.dsl.IntegrationFlow;
-import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.messaging.Message;
 
 /**
@@ -48,12 +48,10 @@ public class TwitterTrendProcessorConfiguration {
 	@Bean
 	@Conditional(OnMissingStreamFunctionDefinitionCondition.class)
 	public IntegrationFlow defaultProcessorFlow(Processor processor,
-			Function<Message<?>, Trends> trend, Function<Object, Message<byte[]>> managedJson) {
+			Function<Message<?>, Trends> trend, Function<Object, Message<byte[]>> managedJson,
+			AsyncRequestProcessor asyncRequestProcessor) {
 
-		return IntegrationFlows
-				.from(processor.input())
-				.transform(Message.class, trend.andThen(managedJson)::apply)
-				.channel(processor.output())
-				.get();
+		return asyncRequestProcessor.flow(processor.input(),
+				trend.andThen(managedJson), processor.output());
 	}
 }
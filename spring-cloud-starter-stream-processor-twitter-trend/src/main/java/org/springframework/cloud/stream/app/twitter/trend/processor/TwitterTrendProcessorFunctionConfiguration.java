@@ -25,6 +25,7 @@ import twitter4j.Twitter;
 import twitter4j.TwitterException;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -39,10 +40,11 @@ public class TwitterTrendProcessorFunctionConfiguration {
 	private static final Log logger = LogFactory.getLog(TwitterTrendProcessorFunctionConfiguration.class);
 
 	@Bean
-	public Function<Message<?>, Trends> trend(TwitterTrendProcessorProperties properties, Twitter twitter) {
+	public Function<Message<?>, Trends> trend(TwitterTrendProcessorProperties properties, Twitter twitter,
+			ExpressionEvaluator expressionEvaluator) {
 		return message -> {
 			try {
-				int woeid = properties.getLocationId().getValue(message, int.class);
+				int woeid = expressionEvaluator.getValue(properties.getLocationId(), message, int.class);
 				return twitter.getPlaceTrends(woeid);
 			}
 			catch (TwitterException e) {
@@ -24,6 +24,7 @@ import org.apache.commons.logging.LogFactory;
 import twitter4j.User;
 
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.AsyncRequestProcessor;
 import org.springframework.cloud.stream.app.twitter.common.OnMissingStreamFunctionDefinitionCondition;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Processor;
@@ -32,7 +33,6 @@ import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.integration.dsl.IntegrationFlow;
-import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.messaging.Message;
 
 /**
@@ -50,12 +50,10 @@ public class TwitterUsersProcessorConfiguration {
 	@Bean
 	@Conditional(OnMissingStreamFunctionDefinitionCondition.class)
 	public IntegrationFlow defaultProcessorFlow(Processor processor,
-			Function<Message<?>, List<User>> queryUsers, Function<Object, Message<byte[]>> managedJson) {
+			Function<Message<?>, List<User>> queryUsers, Function<Object, Message<byte[]>> managedJson,
+			AsyncRequestProcessor asyncRequestProcessor) {
 
-		return IntegrationFlows
-				.from(processor.input())
-				.transform(Message.class, queryUsers.andThen(managedJson)::apply)
-				.channel(processor.output())
-				.get();
+		return asyncRequestProcessor.flow(processor.input(),
+				queryUsers.andThen(managedJson), processor.output());
 	}
 }
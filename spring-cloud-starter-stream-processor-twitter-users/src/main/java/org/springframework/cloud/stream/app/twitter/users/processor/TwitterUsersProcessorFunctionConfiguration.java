@@ -19,15 +19,18 @@ package org.springframework.cloud.stream.app.twitter.users.processor;
 import java.util.List;
 import java.util.function.Function;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import twitter4j.ResponseList;
 import twitter4j.Twitter;
 import twitter4j.TwitterException;
 import twitter4j.User;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -42,16 +45,26 @@ public class TwitterUsersProcessorFunctionConfiguration {
 
 	private static final Log logger = LogFactory.getLog(TwitterUsersProcessorFunctionConfiguration.class);
 
+	@Bean
+	public UserCache userCache(TwitterUsersProcessorProperties properties,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		UserCache userCache = new UserCache(properties.getCache());
+		if (userCache.isEnabled()) {
+			userCache.registerMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+		}
+		return userCache;
+	}
+
 	@Bean
 	@ConditionalOnProperty(name = "twitter.users.type", havingValue = "search")
 	public Function<Message<?>, List<User>> userSearch(Twitter twitter,
-			TwitterUsersProcessorProperties properties) {
+			TwitterUsersProcessorProperties properties, ExpressionEvaluator expressionEvaluator, UserCache userCache) {
 
 		return message -> {
-			String query = properties.getSearch().getQuery().getValue(message, String.class);
+			String query = expressionEvaluator.getValue(properties.getSearch().getQuery(), message, String.class);
 			try {
-				ResponseList<User> users = twitter.searchUsers(query, properties.getSearch().getPage());
-				return users;
+				int page = properties.getSearch().getPage();
+				return userCache.searchUsers(query, page, q -> twitter.searchUsers(q, page));
 			}
 			catch (TwitterException e) {
 				logger.error("Twitter API error!", e);
@@ -60,22 +73,33 @@ public class TwitterUsersProcessorFunctionConfiguration {
 		};
 	}
 
+	@Bean
+	@ConditionalOnProperty(name = "twitter.users.type", havingValue = "lookup")
+	public UserLookupBatcher userLookupBatcher(Twitter twitter, TwitterUsersProcessorProperties properties) {
+		return new UserLookupBatcher(twitter, properties.getLookup().getBatchWindow());
+	}
+
 	@Bean
 	@ConditionalOnProperty(name = "twitter.users.type", havingValue = "lookup")
 	public Function<Message<?>, List<User>> userLookup(Twitter twitter,
-			TwitterUsersProcessorProperties properties) {
+			TwitterUsersProcessorProperties properties, ExpressionEvaluator expressionEvaluator,
+			UserLookupBatcher userLookupBatcher, UserCache userCache) {
+
+		boolean batched = properties.getLookup().getBatchWindow() > 0;
 
 		return message -> {
 
 			try {
 				TwitterUsersProcessorProperties.Lookup lookup = properties.getLookup();
 				if (lookup.getScreenName() != null) {
-					String[] screenNames = lookup.getScreenName().getValue(message, String[].class);
-					return twitter.lookupUsers(screenNames);
+					String[] screenNames = expressionEvaluator.getValue(lookup.getScreenName(), message, String[].class);
+					return userCache.lookupUsers(screenNames,
+							names -> batched ? userLookupBatcher.lookupUsers(names) : twitter.lookupUsers(names));
 				}
 				else if (lookup.getUserId() != null) {
-					long[] ids = lookup.getUserId().getValue(message, long[].class);
-					return twitter.lookupUsers(ids);
+					long[] ids = expressionEvaluator.getValue(lookup.getUserId(), message, long[].class);
+					return userCache.lookupUsers(ids,
+							userIds -> batched ? userLookupBatcher.lookupUsers(userIds) : twitter.lookupUsers(userIds));
 				}
 			}
 			catch (TwitterException e) {
@@ -16,8 +16,11 @@
 
 package org.springframework.cloud.stream.app.twitter.users.processor;
 
+import javax.validation.Valid;
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.expression.Expression;
@@ -46,6 +49,7 @@ public class TwitterUsersProcessorProperties {
 	 * Returns fully-hydrated user objects for specified by comma-separated values passed to the user_id and/or
 	 * screen_name parameters.
 	 */
+	@Valid
 	private Lookup lookup = new Lookup();
 
 	/**
@@ -54,6 +58,12 @@ public class TwitterUsersProcessorProperties {
 	 */
 	private Search search = new Search();
 
+	/**
+	 * Cache of the looked up and searched users.
+	 */
+	@Valid
+	private Cache cache = new Cache();
+
 	public UserQueryType getType() {
 		return type;
 	}
@@ -70,6 +80,10 @@ public class TwitterUsersProcessorProperties {
 		return search;
 	}
 
+	public Cache getCache() {
+		return cache;
+	}
+
 	public static class Lookup {
 		/**
 		 * A comma separated list of user IDs, up to 100 are allowed in a single request.
@@ -83,6 +97,14 @@ public class TwitterUsersProcessorProperties {
 		 */
 		private Expression screenName;
 
+		/**
+		 * Time window (in milliseconds) to gather the user IDs or screen names of concurrently processed messages
+		 * into a single lookup request (up to 100 users). The requests wait for a batch looked up on another thread
+		 * for as long as the lookup takes, rate limit waits included. Batching is disabled when set to 0.
+		 */
+		@PositiveOrZero
+		private long batchWindow = 0;
+
 		public Expression getUserId() {
 			return userId;
 		}
@@ -98,6 +120,14 @@ public class TwitterUsersProcessorProperties {
 		public void setScreenName(Expression screenName) {
 			this.screenName = screenName;
 		}
+
+		public long getBatchWindow() {
+			return batchWindow;
+		}
+
+		public void setBatchWindow(long batchWindow) {
+			this.batchWindow = batchWindow;
+		}
 	}
 
 	public static class Search {
@@ -128,6 +158,65 @@ public class TwitterUsersProcessorProperties {
 		}
 	}
 
+	public static class Cache {
+
+		/**
+		 * Cache the users returned by the Twitter APIs.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time to live (in milliseconds) of the cached users and search results.
+		 */
+		@Positive
+		private long ttl = 600000;
+
+		/**
+		 * Time to live (in milliseconds) of the user IDs and screen names not found by the lookups. Not cached when
+		 * set to 0.
+		 */
+		@PositiveOrZero
+		private long negativeTtl = 60000;
+
+		/**
+		 * Maximum number of cached users. When full, the least recently used users are evicted.
+		 */
+		@Positive
+		private int maxSize = 10000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(long ttl) {
+			this.ttl = ttl;
+		}
+
+		public long getNegativeTtl() {
+			return negativeTtl;
+		}
+
+		public void setNegativeTtl(long negativeTtl) {
+			this.negativeTtl = negativeTtl;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+	}
+
 	@AssertTrue(message = "Per query type validate the required parameters")
 	public boolean checkParametersPerType() {
 		if (this.getType() == UserQueryType.lookup) {
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.users.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import twitter4j.TwitterException;
+import twitter4j.User;
+
+import org.springframework.cloud.stream.app.twitter.common.TtlCache;
+
+/**
+ * Caches the users returned by the Users Lookup and Search APIs, so the frequently requested users are resolved
+ * without an API call. The looked up users are cached by ID and by screen name (case insensitive), the search results
+ * by query and page.
+ *
+ * The IDs and screen names not returned by the Users Lookup API (unknown or suspended users) are cached as absent,
+ * for the negative time to live. When disabled all the requests go to the Twitter APIs.
+ *
+ * The usage of the byId, byScreenName and searches caches is reported by the twitter.users.cache.hits,
+ * twitter.users.cache.misses, twitter.users.cache.evictions and twitter.users.cache.size meters, tagged by cache name.
+ *
+ * @author Christian Tzolov
+ */
+public class UserCache {
+
+	private static final int NOT_FOUND = 404;
+
+	@FunctionalInterface
+	public interface Lookup<T> {
+		List<User> apply(T keys) throws TwitterException;
+	}
+
+	private final boolean enabled;
+
+	private final TtlCache<Long, User> byId;
+
+	private final TtlCache<String, User> byScreenName;
+
+	private final TtlCache<String, List<User>> searches;
+
+	public UserCache(TwitterUsersProcessorProperties.Cache cache) {
+		this.enabled = cache.isEnabled();
+		this.byId = new TtlCache<>(cache.getMaxSize(), cache.getTtl(), cache.getNegativeTtl());
+		this.byScreenName = new TtlCache<>(cache.getMaxSize(), cache.getTtl(), cache.getNegativeTtl());
+		this.searches = new TtlCache<>(cache.getMaxSize(), cache.getTtl(), cache.getNegativeTtl());
+	}
+
+	/**
+	 * Registers the hit, miss, eviction and size meters of the caches.
+	 */
+	public void registerMetrics(MeterRegistry registry) {
+		this.registerMetrics(registry, "byId", this.byId);
+		this.registerMetrics(registry, "byScreenName", this.byScreenName);
+		this.registerMetrics(registry, "searches", this.searches);
+	}
+
+	private void registerMetrics(MeterRegistry registry, String name, TtlCache<?, ?> cache) {
+		FunctionCounter.builder("twitter.users.cache.hits", cache, TtlCache::getHitCount)
+				.description("Requests served from the cache")
+				.tag("cache", name)
+				.register(registry);
+		FunctionCounter.builder("twitter.users.cache.misses", cache, TtlCache::getMissCount)
+				.description("Requests not found in the cache or expired")
+				.tag("cache", name)
+				.register(registry);
+		FunctionCounter.builder("twitter.users.cache.evictions", cache, TtlCache::getEvictionCount)
+				.description("Entries evicted from the full cache")
+				.tag("cache", name)
+				.register(registry);
+		Gauge.builder("twitter.users.cache.size", cache, TtlCache::size)
+				.description("Cached entries, including the absent ones")
+				.tag("cache", name)
+				.register(registry);
+	}
+
+	public List<User> lookupUsers(long[] ids, Lookup<long[]> lookup) throws TwitterException {
+		if (!this.enabled) {
+			return lookup.apply(ids);
+		}
+		List<Long> keys = new ArrayList<>();
+		for (long id : ids) {
+			keys.add(id);
+		}
+		return this.lookupUsers(keys, this.byId,
+				missing -> lookup.apply(missing.stream().mapToLong(Long::longValue).toArray()),
+				User::getId);
+	}
+
+	public List<User> lookupUsers(String[] screenNames, Lookup<String[]> lookup) throws TwitterException {
+		if (!this.enabled) {
+			return lookup.apply(screenNames);
+		}
+		List<String> keys = new ArrayList<>();
+		for (String screenName : screenNames) {
+			keys.add(screenName.trim().toLowerCase());
+		}
+		return this.lookupUsers(keys, this.byScreenName,
+				missing -> lookup.apply(missing.toArray(new String[0])),
+				user -> user.getScreenName().toLowerCase());
+	}
+
+	public List<User> searchUsers(String query, int page, Lookup<String> search) throws TwitterException {
+		if (!this.enabled) {
+			return search.apply(query);
+		}
+		String key = query + "#" + page;
+		TtlCache.Entry<List<User>> entry = this.searches.get(key);
+		if (entry != null) {
+			return entry.getValue();
+		}
+		List<User> users = search.apply(query);
+		if (users != null) {
+			this.searches.put(key, users);
+			users.forEach(this::cache);
+		}
+		return users;
+	}
+
+	private <K> List<User> lookupUsers(List<K> keys, TtlCache<K, User> cache, Lookup<List<K>> lookup,
+			Function<User, K> userKey) throws TwitterException {
+
+		Map<K, User> users = new HashMap<>();
+		List<K> missing = new ArrayList<>();
+
+		for (K key : keys) {
+			TtlCache.Entry<User> entry = cache.get(key);
+			if (entry == null) {
+				missing.add(key);
+			}
+			else if (entry.getValue() != null) {
+				users.put(key, entry.getValue());
+			}
+		}
+
+		if (!missing.isEmpty()) {
+			for (User user : this.lookupMissing(missing, lookup)) {
+				this.cache(user);
+				users.put(userKey.apply(user), user);
+			}
+			missing.stream().filter(key -> !users.containsKey(key)).forEach(cache::putAbsent);
+		}
+
+		return keys.stream().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	private <K> List<User> lookupMissing(List<K> missing, Lookup<List<K>> lookup) throws TwitterException {
+		try {
+			List<User> users = lookup.apply(missing);
+			return (users != null) ? users : Collections.emptyList();
+		}
+		catch (TwitterException e) {
+			// The Users Lookup API responds with Not Found if none of the requested users exist.
+			if (e.getStatusCode() == NOT_FOUND) {
+				return Collections.emptyList();
+			}
+			throw e;
+		}
+	}
+
+	private void cache(User user) {
+		this.byId.put(user.getId(), user);
+		this.byScreenName.put(user.getScreenName().toLowerCase(), user);
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	@Override
+	public String toString() {
+		return "UserCache{" +
+				"byId=" + this.byId +
+				", byScreenName=" + this.byScreenName +
+				", searches=" + this.searches +
+				'}';
+	}
+}
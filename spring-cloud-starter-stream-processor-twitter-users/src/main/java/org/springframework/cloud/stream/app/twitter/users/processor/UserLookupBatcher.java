@@ -0,0 +1,234 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.users.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+import twitter4j.User;
+
+/**
+ * Coalesces the user lookups of concurrently processed messages into batched Users Lookup API calls.
+ *
+ * The user IDs (or screen names) requested within the batch window are gathered and looked up with a single call,
+ * up to 100 per call. The batch is looked up on the thread of one of its requests, the first one to see the window
+ * elapsed or the one that filled it up, so in async mode the batches run concurrently on the Twitter request
+ * executor. The other requests wait for the lookup result without a timeout, since the lookup may be held back by the
+ * rate limit throttle and the HTTP retries. The looking up request always completes them, with the users or with the
+ * lookup failure (e.g. the TwitterException). Every request then gets back only its own users, in the requested
+ * order. As with the Users Lookup API, the unknown or suspended users are omitted.
+ *
+ * Batching pays off only when multiple messages are processed at once, e.g. in async mode or with concurrent
+ * consumers. Requests for more than 100 users are looked up directly.
+ *
+ * @author Christian Tzolov
+ */
+public class UserLookupBatcher {
+
+	static final int MAX_BATCH_SIZE = 100;
+
+	private final long batchWindow;
+
+	private final Batcher<Long> userIds;
+
+	private final Batcher<String> screenNames;
+
+	/**
+	 * @param twitter Twitter client.
+	 * @param batchWindow Time (in milliseconds) to gather the requests of a batch.
+	 */
+	public UserLookupBatcher(Twitter twitter, long batchWindow) {
+		this.batchWindow = batchWindow;
+		this.userIds = new Batcher<>(
+				ids -> twitter.lookupUsers(ids.stream().mapToLong(Long::longValue).toArray()),
+				User::getId);
+		this.screenNames = new Batcher<>(
+				names -> twitter.lookupUsers(names.toArray(new String[0])),
+				user -> user.getScreenName().toLowerCase());
+	}
+
+	public List<User> lookupUsers(long... ids) throws TwitterException {
+		return this.userIds.lookup(Arrays.stream(ids).boxed().collect(Collectors.toList()));
+	}
+
+	public List<User> lookupUsers(String... names) throws TwitterException {
+		return this.screenNames.lookup(Arrays.stream(names).map(String::trim).map(String::toLowerCase)
+				.collect(Collectors.toList()));
+	}
+
+	@FunctionalInterface
+	private interface Lookup<K> {
+		List<User> apply(List<K> keys) throws TwitterException;
+	}
+
+	private static final class Request<K> {
+
+		private final List<K> keys;
+
+		private final CompletableFuture<List<User>> users = new CompletableFuture<>();
+
+		private Request(List<K> keys) {
+			this.keys = keys;
+		}
+	}
+
+	private static final class Batch<K> {
+
+		private final Set<K> keys = new LinkedHashSet<>();
+
+		private final List<Request<K>> requests = new ArrayList<>();
+
+		private final long sendTime;
+
+		private boolean sent;
+
+		private Batch(long sendTime) {
+			this.sendTime = sendTime;
+		}
+
+		private boolean fits(List<K> keys) {
+			return this.keys.size() + keys.stream().filter(key -> !this.keys.contains(key)).distinct().count()
+					<= MAX_BATCH_SIZE;
+		}
+	}
+
+	private final class Batcher<K> {
+
+		private final Lookup<K> lookup;
+
+		private final Function<User, K> userKey;
+
+		private Batch<K> current;
+
+		private Batcher(Lookup<K> lookup, Function<User, K> userKey) {
+			this.lookup = lookup;
+			this.userKey = userKey;
+		}
+
+		private List<User> lookup(List<K> keys) throws TwitterException {
+
+			if (keys.size() > MAX_BATCH_SIZE) {
+				return this.lookup.apply(keys);
+			}
+
+			Request<K> request = new Request<>(keys);
+			Batch<K> batch;
+			Batch<K> full = null;
+
+			synchronized (this) {
+				if (this.current != null && !this.current.fits(keys)) {
+					full = this.current;
+					this.current = null;
+				}
+				if (this.current == null) {
+					this.current = new Batch<>(System.currentTimeMillis() + batchWindow);
+				}
+				batch = this.current;
+				batch.keys.addAll(keys);
+				batch.requests.add(request);
+			}
+
+			if (full != null) {
+				this.send(full);
+			}
+
+			try {
+				long window = batch.sendTime - System.currentTimeMillis();
+				if (window <= 0 || !this.await(request, window)) {
+					// No-op if another request has sent the batch already
+					this.send(batch);
+				}
+				return request.users.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TwitterException("Interrupted while waiting for the users lookup", e);
+			}
+			catch (ExecutionException e) {
+				// Same failure as the direct lookup
+				Throwable cause = e.getCause();
+				if (cause instanceof TwitterException) {
+					throw (TwitterException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException("Users lookup failed", cause);
+			}
+		}
+
+		/**
+		 * @return true if the request has completed within the wait time.
+		 */
+		private boolean await(Request<K> request, long wait) throws InterruptedException, ExecutionException {
+			try {
+				request.users.get(wait, TimeUnit.MILLISECONDS);
+				return true;
+			}
+			catch (TimeoutException e) {
+				return false;
+			}
+		}
+
+		private void send(Batch<K> batch) {
+			synchronized (this) {
+				if (batch.sent) {
+					return;
+				}
+				batch.sent = true;
+				if (this.current == batch) {
+					this.current = null;
+				}
+			}
+
+			// Once sent, the batch is no longer modified.
+			List<K> keys = new ArrayList<>(batch.keys);
+			List<Request<K>> requests = batch.requests;
+
+			try {
+				Map<K, User> users = new HashMap<>();
+				for (User user : this.lookup.apply(keys)) {
+					users.put(this.userKey.apply(user), user);
+				}
+				for (Request<K> request : requests) {
+					request.users.complete(request.keys.stream().map(users::get).filter(user -> user != null)
+							.collect(Collectors.toList()));
+				}
+			}
+			catch (Throwable e) {
+				// The waiting requests have no timeout, they must be completed whatever the failure.
+				requests.forEach(request -> request.users.completeExceptionally(e));
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.users.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import twitter4j.TwitterException;
+import twitter4j.User;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Christian Tzolov
+ */
+public class UserCacheTests {
+
+	@Test
+	public void testMetrics() throws TwitterException {
+		TwitterUsersProcessorProperties.Cache properties = new TwitterUsersProcessorProperties.Cache();
+		properties.setEnabled(true);
+		properties.setMaxSize(2);
+		UserCache cache = new UserCache(properties);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		cache.registerMetrics(registry);
+
+		cache.lookupUsers(new long[] { 1, 2 }, this::users);
+		cache.lookupUsers(new long[] { 1 }, this::users);
+		cache.lookupUsers(new long[] { 3 }, this::users);
+
+		assertThat(this.count(registry, "twitter.users.cache.hits"), is(1.0));
+		assertThat(this.count(registry, "twitter.users.cache.misses"), is(3.0));
+		assertThat(this.count(registry, "twitter.users.cache.evictions"), is(1.0));
+		assertThat(registry.get("twitter.users.cache.size").tag("cache", "byId").gauge().value(), is(2.0));
+	}
+
+	private double count(SimpleMeterRegistry registry, String name) {
+		return registry.get(name).tag("cache", "byId").functionCounter().count();
+	}
+
+	private List<User> users(long[] ids) {
+		List<User> users = new ArrayList<>();
+		for (long id : ids) {
+			User user = mock(User.class);
+			when(user.getId()).thenReturn(id);
+			when(user.getScreenName()).thenReturn("user" + id);
+			users.add(user);
+		}
+		return users;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.users.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+import twitter4j.RateLimitStatus;
+import twitter4j.ResponseList;
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+import twitter4j.User;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Christian Tzolov
+ */
+public class UserLookupBatcherTests {
+
+	@Test
+	public void testConcurrentLookupsAreCoalesced() throws Exception {
+		Twitter twitter = mock(Twitter.class);
+		when(twitter.lookupUsers(any(long[].class))).thenAnswer(invocation -> {
+			Users users = new Users();
+			for (long id : (long[]) invocation.getArgument(0)) {
+				if (id != 666) {
+					users.add(user(id));
+				}
+			}
+			return users;
+		});
+
+		UserLookupBatcher batcher = new UserLookupBatcher(twitter, 200);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			CompletableFuture<List<User>> first = lookup(executor, batcher, 1, 2);
+			CompletableFuture<List<User>> second = lookup(executor, batcher, 3, 1);
+			CompletableFuture<List<User>> third = lookup(executor, batcher, 666);
+
+			assertThat(ids(first.get(5, TimeUnit.SECONDS)), contains(1L, 2L));
+			assertThat(ids(second.get(5, TimeUnit.SECONDS)), contains(3L, 1L));
+			assertThat(third.get(5, TimeUnit.SECONDS), empty());
+
+			verify(twitter, times(1)).lookupUsers(any(long[].class));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testBatchesAreLookedUpConcurrently() throws Exception {
+		// Every lookup waits for a second one to run at the same time
+		CountDownLatch concurrentLookups = new CountDownLatch(2);
+		Twitter twitter = mock(Twitter.class);
+		when(twitter.lookupUsers(any(long[].class))).thenAnswer(invocation -> {
+			concurrentLookups.countDown();
+			concurrentLookups.await(5, TimeUnit.SECONDS);
+			return users((long[]) invocation.getArgument(0));
+		});
+
+		UserLookupBatcher batcher = new UserLookupBatcher(twitter, 300);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			CompletableFuture<List<User>> first = lookup(executor, batcher, range(0, 60));
+			Thread.sleep(50);
+			// Doesn't fit, sends the first batch and starts the second one
+			CompletableFuture<List<User>> second = lookup(executor, batcher, range(100, 160));
+			Thread.sleep(50);
+			CompletableFuture<List<User>> third = lookup(executor, batcher, range(200, 230));
+
+			assertThat(first.get(5, TimeUnit.SECONDS).size(), is(60));
+			assertThat(second.get(5, TimeUnit.SECONDS).size(), is(60));
+			assertThat(third.get(5, TimeUnit.SECONDS).size(), is(30));
+			assertThat(concurrentLookups.getCount(), is(0L));
+
+			verify(twitter, times(2)).lookupUsers(any(long[].class));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testWaitsForSlowLookup() throws Exception {
+		// Longer than the batch window, e.g. held back by the rate limit throttle
+		Twitter twitter = mock(Twitter.class);
+		when(twitter.lookupUsers(any(long[].class))).thenAnswer(invocation -> {
+			Thread.sleep(1000);
+			return users((long[]) invocation.getArgument(0));
+		});
+
+		UserLookupBatcher batcher = new UserLookupBatcher(twitter, 100);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			CompletableFuture<List<User>> first = lookup(executor, batcher, 1);
+			CompletableFuture<List<User>> second = lookup(executor, batcher, 2);
+
+			assertThat(ids(first.get(5, TimeUnit.SECONDS)), contains(1L));
+			assertThat(ids(second.get(5, TimeUnit.SECONDS)), contains(2L));
+
+			verify(twitter, times(1)).lookupUsers(any(long[].class));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testLookupFailureIsSharedWithTheBatch() throws Exception {
+		TwitterException failure = mock(TwitterException.class);
+		Twitter twitter = mock(Twitter.class);
+		when(twitter.lookupUsers(any(long[].class))).thenThrow(failure);
+
+		UserLookupBatcher batcher = new UserLookupBatcher(twitter, 100);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			CompletableFuture<Throwable> first = lookup(executor, batcher, 1).handle((users, error) -> error);
+			CompletableFuture<Throwable> second = lookup(executor, batcher, 2).handle((users, error) -> error);
+
+			// Both requests get the TwitterException, as with the direct lookup
+			assertThat(first.get(5, TimeUnit.SECONDS).getCause().getCause(), sameInstance(failure));
+			assertThat(second.get(5, TimeUnit.SECONDS).getCause().getCause(), sameInstance(failure));
+
+			verify(twitter, times(1)).lookupUsers(any(long[].class));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private CompletableFuture<List<User>> lookup(ExecutorService executor, UserLookupBatcher batcher, long... ids) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return batcher.lookupUsers(ids);
+			}
+			catch (TwitterException e) {
+				throw new IllegalStateException(e);
+			}
+		}, executor);
+	}
+
+	private Users users(long[] ids) {
+		Users users = new Users();
+		for (long id : ids) {
+			users.add(user(id));
+		}
+		return users;
+	}
+
+	private long[] range(long from, long to) {
+		return LongStream.range(from, to).toArray();
+	}
+
+	private List<Long> ids(List<User> users) {
+		return users.stream().map(User::getId).collect(Collectors.toList());
+	}
+
+	private User user(long id) {
+		User user = mock(User.class);
+		when(user.getId()).thenReturn(id);
+		return user;
+	}
+
+	private static class Users extends ArrayList<User> implements ResponseList<User> {
+
+		@Override
+		public RateLimitStatus getRateLimitStatus() {
+			return null;
+		}
+
+		@Override
+		public int getAccessLevel() {
+			return 0;
+		}
+	}
+}
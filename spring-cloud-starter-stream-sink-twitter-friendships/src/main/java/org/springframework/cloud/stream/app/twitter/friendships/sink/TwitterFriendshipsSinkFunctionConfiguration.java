@@ -22,6 +22,7 @@ import twitter4j.Twitter;
 import twitter4j.TwitterException;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -36,23 +37,24 @@ public class TwitterFriendshipsSinkFunctionConfiguration {
 
 	@Bean
 	@SuppressWarnings("Duplicates")
-	public Consumer<Message<?>> friendship(TwitterFriendshipsSinkProperties properties, Twitter twitter) {
+	public Consumer<Message<?>> friendship(TwitterFriendshipsSinkProperties properties, Twitter twitter,
+			ExpressionEvaluator expressionEvaluator) {
 
 		return message -> {
 			try {
-				TwitterFriendshipsSinkProperties.OperationType type = properties.getType().getValue(message, TwitterFriendshipsSinkProperties.OperationType.class);
+				TwitterFriendshipsSinkProperties.OperationType type = expressionEvaluator.getValue(properties.getType(), message, TwitterFriendshipsSinkProperties.OperationType.class);
 				//TwitterFriendshipsSinkProperties.OperationType type = TwitterFriendshipsSinkProperties.OperationType.create;
 				if (properties.getUserId() != null) {
-					Long userId = properties.getUserId().getValue(message, long.class);
+					Long userId = expressionEvaluator.getValue(properties.getUserId(), message, long.class);
 					switch (type) {
 					case create: {
-						boolean follow = properties.getCreate().getFollow().getValue(message, boolean.class);
+						boolean follow = expressionEvaluator.getValue(properties.getCreate().getFollow(), message, boolean.class);
 						twitter.createFriendship(userId, follow);
 						break;
 					}
 					case update: {
-						boolean enableDeviceNotification = properties.getUpdate().getDevice().getValue(message, boolean.class);
-						boolean retweets = properties.getUpdate().getRetweets().getValue(message, boolean.class);
+						boolean enableDeviceNotification = expressionEvaluator.getValue(properties.getUpdate().getDevice(), message, boolean.class);
+						boolean retweets = expressionEvaluator.getValue(properties.getUpdate().getRetweets(), message, boolean.class);
 						twitter.updateFriendship(userId, enableDeviceNotification, retweets);
 						break;
 					}
@@ -63,16 +65,16 @@ public class TwitterFriendshipsSinkFunctionConfiguration {
 					}
 				}
 				else if (properties.getScreenName() != null) {
-					String screenName = properties.getScreenName().getValue(message, String.class);
+					String screenName = expressionEvaluator.getValue(properties.getScreenName(), message, String.class);
 					switch (type) {
 					case create: {
-						boolean follow = properties.getCreate().getFollow().getValue(message, boolean.class);
+						boolean follow = expressionEvaluator.getValue(properties.getCreate().getFollow(), message, boolean.class);
 						twitter.createFriendship(screenName, follow);
 						break;
 					}
 					case update: {
-						boolean enableDeviceNotification = properties.getUpdate().getDevice().getValue(message, boolean.class);
-						boolean retweets = properties.getUpdate().getRetweets().getValue(message, boolean.class);
+						boolean enableDeviceNotification = expressionEvaluator.getValue(properties.getUpdate().getDevice(), message, boolean.class);
+						boolean retweets = expressionEvaluator.getValue(properties.getUpdate().getRetweets(), message, boolean.class);
 						twitter.updateFriendship(screenName, enableDeviceNotification, retweets);
 						break;
 					}
@@ -24,6 +24,7 @@ import twitter4j.Twitter;
 import twitter4j.TwitterException;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -39,21 +40,22 @@ public class TwitterMessageSinkFunctionConfiguration {
 	private static final Log logger = LogFactory.getLog(TwitterMessageSinkFunctionConfiguration.class);
 
 	@Bean
-	public Consumer<Message<?>> sendDirectMessage(TwitterMessageSinkProperties messageProperties, Twitter twitter) {
+	public Consumer<Message<?>> sendDirectMessage(TwitterMessageSinkProperties messageProperties, Twitter twitter,
+			ExpressionEvaluator expressionEvaluator) {
 		return message -> {
 			try {
-				String messageText = messageProperties.getText().getValue(message, String.class);
+				String messageText = expressionEvaluator.getValue(messageProperties.getText(), message, String.class);
 
 				if (messageProperties.getUserId() != null) {
-					Long userId = messageProperties.getUserId().getValue(message, long.class);
+					Long userId = expressionEvaluator.getValue(messageProperties.getUserId(), message, long.class);
 					if (messageProperties.getMediaId() != null) {
-						Long mediaId = messageProperties.getMediaId().getValue(message, long.class);
+						Long mediaId = expressionEvaluator.getValue(messageProperties.getMediaId(), message, long.class);
 						twitter.sendDirectMessage(userId, messageText, mediaId);
 					}
 					twitter.sendDirectMessage(userId, messageText);
 				}
 				else if (messageProperties.getScreenName() != null) {
-					String screenName = messageProperties.getScreenName().getValue(message, String.class);
+					String screenName = expressionEvaluator.getValue(messageProperties.getScreenName(), message, String.class);
 					twitter.sendDirectMessage(screenName, messageText);
 				}
 				else {
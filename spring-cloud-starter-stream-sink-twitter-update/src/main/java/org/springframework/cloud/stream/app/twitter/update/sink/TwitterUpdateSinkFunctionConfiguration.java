@@ -30,6 +30,8 @@ import twitter4j.TwitterException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
+import org.springframework.cloud.stream.app.twitter.common.MessageBinding;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.ConfigurableEnvironment;
@@ -71,42 +73,31 @@ public class TwitterUpdateSinkFunctionConfiguration {
 	}
 
 	@Bean
-	public Function<Message<?>, StatusUpdate> toStatusUpdateQuery(TwitterUpdateSinkProperties updateProperties) {
+	public Function<Message<?>, StatusUpdate> toStatusUpdateQuery(TwitterUpdateSinkProperties updateProperties,
+			ExpressionEvaluator expressionEvaluator) {
 
 		return message -> {
 
-			String updateText = updateProperties.getText().getValue(message, String.class);
+			MessageBinding binding = expressionEvaluator.bind(message);
 
-			StatusUpdate statusUpdate = new StatusUpdate(updateText);
+			StatusUpdate statusUpdate = new StatusUpdate(binding.getValue(updateProperties.getText(), String.class));
 
-			if (updateProperties.getAttachmentUrl() != null) {
-				statusUpdate.setAttachmentUrl(updateProperties.getAttachmentUrl().getValue(message, String.class));
-			}
-
-			if (updateProperties.getPlaceId() != null) {
-				statusUpdate.setPlaceId(updateProperties.getPlaceId().getValue(message, String.class));
-			}
+			binding.bind(updateProperties.getAttachmentUrl(), String.class, statusUpdate::setAttachmentUrl);
+			binding.bind(updateProperties.getPlaceId(), String.class, statusUpdate::setPlaceId);
 
 			if (updateProperties.getInReplyToStatusId() != null) {
-				statusUpdate.setInReplyToStatusId(updateProperties.getInReplyToStatusId().getValue(message, int.class));
+				statusUpdate.setInReplyToStatusId(binding.getValue(updateProperties.getInReplyToStatusId(), long.class));
 				statusUpdate.setAutoPopulateReplyMetadata(true);
 			}
 
-			if (updateProperties.getDisplayCoordinates() != null) {
-				statusUpdate.setDisplayCoordinates(
-						updateProperties.getDisplayCoordinates().getValue(message, boolean.class));
-			}
-
-			if (updateProperties.getMediaIds() != null) {
-				long[] mediaIds = updateProperties.getMediaIds().getValue(message, long[].class);
-				statusUpdate.setMediaIds(mediaIds);
-			}
+			binding.bind(updateProperties.getDisplayCoordinates(), boolean.class, statusUpdate::setDisplayCoordinates);
+			binding.bind(updateProperties.getMediaIds(), long[].class, statusUpdate::setMediaIds);
 
 			if (updateProperties.getLocation().getLat() != null) {
 				Assert.notNull(updateProperties.getLocation().getLon(),
 						"If the latitude is set then the longitude must be set too");
-				double lat = updateProperties.getLocation().getLat().getValue(message, Double.class);
-				double lon = updateProperties.getLocation().getLon().getValue(message, Double.class);
+				double lat = binding.getValue(updateProperties.getLocation().getLat(), Double.class);
+				double lon = binding.getValue(updateProperties.getLocation().getLon(), Double.class);
 				statusUpdate.setLocation(new GeoLocation(lat, lon));
 			}
 
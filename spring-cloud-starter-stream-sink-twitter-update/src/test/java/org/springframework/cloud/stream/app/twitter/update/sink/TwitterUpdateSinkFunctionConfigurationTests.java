@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.stream.app.twitter.update.sink;
 
+import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -24,11 +25,14 @@ import twitter4j.StatusUpdate;
 import twitter4j.Twitter;
 import twitter4j.TwitterException;
 
+import org.springframework.cloud.stream.app.twitter.common.ExpressionEvaluator;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.GenericMessage;
+import org.springframework.messaging.support.MessageBuilder;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -67,7 +71,7 @@ public class TwitterUpdateSinkFunctionConfigurationTests {
 		properties.getLocation().setLon(expression("'-122.40062'"));
 
 		Function<Message<?>, StatusUpdate> toStatusUpdateQueryFunction =
-				new TwitterUpdateSinkFunctionConfiguration().toStatusUpdateQuery(properties);
+				new TwitterUpdateSinkFunctionConfiguration().toStatusUpdateQuery(properties, new ExpressionEvaluator());
 
 		StatusUpdate result = toStatusUpdateQueryFunction.apply(new GenericMessage<>("Hello World"));
 
@@ -81,6 +85,43 @@ public class TwitterUpdateSinkFunctionConfigurationTests {
 		assertThat(result.getLocation().getLongitude(), is(-122.40062));
 	}
 
+	@Test
+	public void testToStatusUpdateQueryFromJsonPayload() {
+		TwitterUpdateSinkProperties properties = new TwitterUpdateSinkProperties();
+
+		properties.setText(expression("json.text"));
+		properties.setInReplyToStatusId(expression("json.reply.id"));
+		properties.getLocation().setLat(expression("json.location[0]"));
+		properties.getLocation().setLon(expression("json.location[1]"));
+
+		Function<Message<?>, StatusUpdate> toStatusUpdateQueryFunction =
+				new TwitterUpdateSinkFunctionConfiguration().toStatusUpdateQuery(properties, new ExpressionEvaluator());
+
+		StatusUpdate result = toStatusUpdateQueryFunction.apply(new GenericMessage<>(
+				"{\"text\":\"Hello World\",\"reply\":{\"id\":666666},\"location\":[37.78217,-122.40062]}"));
+
+		assertThat(result.getStatus(), is("Hello World"));
+		assertThat(result.getInReplyToStatusId(), is(666666L));
+		assertThat(result.getLocation().getLatitude(), is(37.78217));
+		assertThat(result.getLocation().getLongitude(), is(-122.40062));
+	}
+
+	@Test
+	public void testToStatusUpdateQueryFromLatin1JsonPayload() {
+		TwitterUpdateSinkProperties properties = new TwitterUpdateSinkProperties();
+		properties.setText(expression("json.text"));
+
+		Function<Message<?>, StatusUpdate> toStatusUpdateQueryFunction =
+				new TwitterUpdateSinkFunctionConfiguration().toStatusUpdateQuery(properties, new ExpressionEvaluator());
+
+		StatusUpdate result = toStatusUpdateQueryFunction.apply(MessageBuilder
+				.withPayload("{\"text\":\"Caf\u00e9 cr\u00e8me\"}".getBytes(StandardCharsets.ISO_8859_1))
+				.setHeader(MessageHeaders.CONTENT_TYPE, "application/json;charset=ISO-8859-1")
+				.build());
+
+		assertThat(result.getStatus(), is("Caf\u00e9 cr\u00e8me"));
+	}
+
 	private Expression expression(String expressionString) {
 		ExpressionParser parser = new SpelExpressionParser();
 		return parser.parseExpression(expressionString);
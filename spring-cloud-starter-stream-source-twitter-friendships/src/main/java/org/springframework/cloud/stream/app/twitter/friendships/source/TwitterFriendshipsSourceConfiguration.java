@@ -24,12 +24,15 @@ import twitter4j.User;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.RateLimitTracker;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.integration.annotation.InboundChannelAdapter;
 import org.springframework.integration.annotation.Poller;
 import org.springframework.messaging.Message;
+import org.springframework.scheduling.Trigger;
 
 /**
  *
@@ -48,8 +51,18 @@ public class TwitterFriendshipsSourceConfiguration {
 	@Autowired
 	private Function<Object, Message<byte[]>> managedJson;
 
+	/**
+	 * Paces the requests by the remaining quota of the followers or friends list API.
+	 */
+	@Bean
+	public Trigger friendshipsTrigger(TwitterFriendshipsSourceProperties properties, RateLimitTracker rateLimitTracker) {
+		String endpoint = (properties.getType() == TwitterFriendshipsSourceProperties.FriendshipsRequestType.friends) ?
+				"getFriendsList" : "getFollowersList";
+		return rateLimitTracker.trigger(endpoint, properties.getPollInterval());
+	}
+
 	@InboundChannelAdapter(value = Source.OUTPUT,
-			poller = @Poller(fixedDelay = "${twitter.friendships.source.poll-interval:121000}", maxMessagesPerPoll = "1"))
+			poller = @Poller(trigger = "friendshipsTrigger", maxMessagesPerPoll = "1"))
 	public Message<byte[]> userRetrieval() {
 		return userDeduplication.andThen(managedJson).apply(userRetriever.get());
 	}
@@ -69,6 +69,7 @@ public class TwitterFriendshipsSourceProperties {
 
 	/**
 	 * API request poll interval in milliseconds. Must be aligned with used APIs rate limits (~ 1 req/ 2 min).
+	 * Used until the API rate limit status is known or when the rate limit pacing is disabled.
 	 */
 	private int pollInterval = 121000;
 
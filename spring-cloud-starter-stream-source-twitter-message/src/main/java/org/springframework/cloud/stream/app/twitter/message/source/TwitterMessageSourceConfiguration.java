@@ -26,12 +26,15 @@ import twitter4j.DirectMessage;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.RateLimitTracker;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Source;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.integration.annotation.InboundChannelAdapter;
 import org.springframework.integration.annotation.Poller;
 import org.springframework.messaging.Message;
+import org.springframework.scheduling.Trigger;
 
 /**
  *
@@ -52,8 +55,16 @@ public class TwitterMessageSourceConfiguration {
 	@Autowired
 	private Function<List<DirectMessage>, List<DirectMessage>> messageDeduplicate;
 
+	/**
+	 * Paces the requests by the remaining quota of the direct messages API.
+	 */
+	@Bean
+	public Trigger directMessagesTrigger(TwitterMessageSourceProperties properties, RateLimitTracker rateLimitTracker) {
+		return rateLimitTracker.trigger("getDirectMessages", properties.getPollInterval());
+	}
+
 	@InboundChannelAdapter(value = Source.OUTPUT,
-			poller = @Poller(fixedDelay = "${twitter.message.source.poll-interval:121000}", maxMessagesPerPoll = "1"))
+			poller = @Poller(trigger = "directMessagesTrigger", maxMessagesPerPoll = "1"))
 	public Message<byte[]> userRetrieval() {
 		return this.messageDeduplicate.andThen(managedJson).apply(directMessagesSupplier.get());
 	}
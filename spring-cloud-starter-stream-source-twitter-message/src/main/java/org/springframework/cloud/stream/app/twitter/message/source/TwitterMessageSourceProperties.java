@@ -37,7 +37,8 @@ public class TwitterMessageSourceProperties {
 	private int count = 20;
 
 	/**
-	 * API request poll interval in milliseconds. Must be aligned with used APIs rate limits
+	 * API request poll interval in milliseconds. Must be aligned with used APIs rate limits.
+	 * Used until the API rate limit status is known or when the rate limit pacing is disabled.
 	 */
 	@Positive
 	private int pollInterval = 121000;
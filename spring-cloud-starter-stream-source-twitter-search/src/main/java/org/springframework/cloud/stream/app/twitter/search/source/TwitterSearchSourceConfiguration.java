@@ -31,6 +31,7 @@ import twitter4j.TwitterException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.app.twitter.common.RateLimitTracker;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
 import org.springframework.cloud.stream.messaging.Source;
 import org.springframework.context.annotation.Bean;
@@ -38,6 +39,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.integration.annotation.InboundChannelAdapter;
 import org.springframework.integration.annotation.Poller;
 import org.springframework.messaging.Message;
+import org.springframework.scheduling.Trigger;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -73,8 +75,15 @@ public class TwitterSearchSourceConfiguration {
 				this.searchProperties.isRestartFromMostRecentOnEmptyResponse());
 	}
 
-	@InboundChannelAdapter(value = Source.OUTPUT, poller = @Poller(fixedDelay = "${ twitter.search.poll-interval:11000}",
-			maxMessagesPerPoll = "1"))
+	/**
+	 * Paces the search requests by the remaining search API quota.
+	 */
+	@Bean
+	public Trigger searchTrigger(RateLimitTracker rateLimitTracker) {
+		return rateLimitTracker.trigger("search", this.searchProperties.getPollInterval());
+	}
+
+	@InboundChannelAdapter(value = Source.OUTPUT, poller = @Poller(trigger = "searchTrigger", maxMessagesPerPoll = "1"))
 	public Message<byte[]> myMessageSource() {
 		try {
 			Query query = toQuery(this.searchProperties, this.searchPage);
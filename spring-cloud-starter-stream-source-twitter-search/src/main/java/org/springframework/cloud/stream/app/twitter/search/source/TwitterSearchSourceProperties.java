@@ -92,7 +92,8 @@ public class TwitterSearchSourceProperties {
 
 	/**
 	 * Fixed delay between two consecutive search requests.
-	 * The search API rate limits are 180 requests per
+	 * The search API rate limits are 180 requests per 15 minutes.
+	 * Used until the search API rate limit status is known or when the rate limit pacing is disabled.
 	 */
 	public int pollInterval = 11000;
 
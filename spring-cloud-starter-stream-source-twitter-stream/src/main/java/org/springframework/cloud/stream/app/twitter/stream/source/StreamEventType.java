@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Kind of the Twitter stream message carried by an output message. Set as the value of the
+ * {@link #HEADER twitter_event_type} header so the consumers can tell the tweets from the compliance events.
+ *
+ * @author Christian Tzolov
+ */
+public enum StreamEventType {
+
+	status, delete, scrub_geo, limit, other;
+
+	public static final String HEADER = "twitter_event_type";
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/**
+	 * Classifies a raw stream message by its top level JSON field names, streaming over them without binding
+	 * the message. The notices (delete, scrub_geo, limit, warning, status_withheld ...) are single field
+	 * envelopes named after their kind, while a status carries its id and text fields at the top level in
+	 * any order.
+	 * @param json Raw JSON message as received from the Twitter Stream API.
+	 * @return the message event type.
+	 */
+	public static StreamEventType of(String json) {
+		try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return other;
+			}
+			boolean id = false;
+			boolean text = false;
+			boolean first = true;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				if (first) {
+					first = false;
+					if ("delete".equals(field)) {
+						return delete;
+					}
+					if ("scrub_geo".equals(field)) {
+						return scrub_geo;
+					}
+					if ("limit".equals(field)) {
+						return limit;
+					}
+				}
+				id |= "id".equals(field) || "id_str".equals(field);
+				text |= "text".equals(field) || "full_text".equals(field);
+				if (id && text) {
+					return status;
+				}
+				parser.nextToken();
+				parser.skipChildren();
+			}
+		}
+		catch (IOException e) {
+			// Not a JSON object message
+		}
+		return other;
+	}
+
+	/**
+	 * @return true for the status deletion and scrub_geo notices, emitted only when the compliance events are
+	 * enabled. The statuses, the limit notices and the other notices (warning, disconnect, status_withheld,
+	 * user_withheld ...) are always emitted.
+	 */
+	public boolean isComplianceEvent() {
+		return this == delete || this == scrub_geo;
+	}
+}
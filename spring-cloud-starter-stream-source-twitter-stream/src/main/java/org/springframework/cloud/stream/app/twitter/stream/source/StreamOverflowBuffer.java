@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bounds the number of tweets held in memory between the Twitter stream listener and the output binding.
+ *
+ * Unless the unbounded strategy is used, the tweets are handed over to the binder on a dedicated thread, so a slow
+ * binder no longer stalls the Twitter4J dispatcher thread (whose own queue is unbounded). Instead the tweets are
+ * accumulated in a buffer of fixed capacity and the configured strategy decides what happens when it is full:
+ *
+ * - dropOldest : the oldest buffered tweet is discarded to make room for the new one.
+ * - dropLatest : the incoming tweet is discarded.
+ * - block : the stream listener thread is blocked until the binder frees up space in the buffer.
+ *
+ * The capacity bounds all the tweets between the listener and the binder, including the one handed over to the
+ * output thread. When the subscription is cancelled, the tweets still in the buffer are discarded and, for the block
+ * strategy, their permits are released, so a resubscribed stream starts with the full capacity.
+ *
+ * The number of dropped tweets and the number of tweets currently waiting in the buffer are tracked.
+ *
+ * @author Christian Tzolov
+ */
+public class StreamOverflowBuffer {
+
+	private final TwitterStreamSourceProperties.Overflow.Strategy strategy;
+
+	private final int capacity;
+
+	private final Semaphore permits;
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private final AtomicInteger bufferedCount = new AtomicInteger();
+
+	private final AtomicInteger heldPermits = new AtomicInteger();
+
+	public StreamOverflowBuffer(TwitterStreamSourceProperties.Overflow overflow) {
+		Assert.isTrue(overflow.getCapacity() > 1, "The overflow buffer capacity must be at least 2 but was: "
+				+ overflow.getCapacity());
+		this.strategy = overflow.getStrategy();
+		this.capacity = overflow.getCapacity();
+		this.permits = new Semaphore(this.capacity);
+	}
+
+	/**
+	 * Must be called by the stream listener before emitting a tweet. For the block strategy waits until there is
+	 * space in the buffer.
+	 * @return false if the waiting thread was interrupted and the tweet should not be emitted.
+	 */
+	public boolean acquire() {
+		if (this.strategy == TwitterStreamSourceProperties.Overflow.Strategy.block) {
+			try {
+				this.permits.acquire();
+				this.heldPermits.incrementAndGet();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Applies the overflow strategy to the flux of tweets emitted by the stream listener.
+	 */
+	public <T> Flux<T> apply(Flux<T> tweets) {
+
+		if (this.strategy == TwitterStreamSourceProperties.Overflow.Strategy.unbounded) {
+			return tweets;
+		}
+
+		Flux<T> buffered = tweets.doOnNext(tweet -> this.bufferedCount.incrementAndGet());
+
+		// The output thread prefetches a single tweet, which counts towards the capacity.
+		int bufferSize = this.capacity - 1;
+
+		switch (this.strategy) {
+		case dropOldest: {
+			buffered = buffered.onBackpressureBuffer(bufferSize, this::dropped, BufferOverflowStrategy.DROP_OLDEST);
+			break;
+		}
+		case dropLatest: {
+			buffered = buffered.onBackpressureBuffer(bufferSize, this::dropped, BufferOverflowStrategy.DROP_LATEST);
+			break;
+		}
+		case block: {
+			// The semaphore permits already bound the buffer size.
+			buffered = buffered.onBackpressureBuffer();
+			break;
+		}
+		}
+
+		Scheduler scheduler = Schedulers.newSingle("twitter-stream-output");
+
+		return buffered
+				.publishOn(scheduler, 1)
+				.doOnNext(tweet -> this.released())
+				.doFinally(signal -> {
+					scheduler.dispose();
+					this.discarded();
+				});
+	}
+
+	private void dropped(Object tweet) {
+		this.bufferedCount.decrementAndGet();
+		this.droppedCount.incrementAndGet();
+	}
+
+	private void released() {
+		this.bufferedCount.decrementAndGet();
+		if (this.strategy == TwitterStreamSourceProperties.Overflow.Strategy.block
+				&& this.heldPermits.getAndUpdate(held -> Math.max(0, held - 1)) > 0) {
+			this.permits.release();
+		}
+	}
+
+	/**
+	 * The tweets left in the buffer when the subscription terminates are never sent.
+	 */
+	private void discarded() {
+		this.bufferedCount.set(0);
+		if (this.strategy == TwitterStreamSourceProperties.Overflow.Strategy.block) {
+			this.permits.release(this.heldPermits.getAndSet(0));
+		}
+	}
+
+	/**
+	 * @return Total number of tweets discarded because of a full buffer.
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * @return Number of tweets currently waiting to be sent to the output binding.
+	 */
+	public int getBufferedCount() {
+		return this.bufferedCount.get();
+	}
+
+	public TwitterStreamSourceProperties.Overflow.Strategy getStrategy() {
+		return this.strategy;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+}
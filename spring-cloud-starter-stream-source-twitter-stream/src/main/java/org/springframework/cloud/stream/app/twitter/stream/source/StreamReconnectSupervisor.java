@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the tweets flux alive when the Twitter stream connection fails. Instead of propagating the error downstream
+ * the stream subscription is re-established after a jittered, exponentially growing backoff.
+ *
+ * The backoff starts from initialBackoff and is multiplied on every consecutive failure, up to maxBackoff. After
+ * circuitBreakerThreshold consecutive failures the circuit is opened and the next attempt is delayed by the
+ * circuitBreakerTimeout. The failures counter is reset as soon as a message is received from the stream.
+ *
+ * Configuration errors (e.g. IllegalArgumentException and IllegalStateException) are not retried.
+ *
+ * Each stream connection needs its own backoff state, so the sharded streams use a {@link #forShard(int) shard}
+ * supervisor each. The shard supervisors share the total reconnect count.
+ *
+ * @author Christian Tzolov
+ */
+public class StreamReconnectSupervisor {
+
+	private static final Log logger = LogFactory.getLog(StreamReconnectSupervisor.class);
+
+	private final TwitterStreamSourceProperties.Reconnect reconnect;
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	private final AtomicLong reconnectCount;
+
+	private final String name;
+
+	public StreamReconnectSupervisor(TwitterStreamSourceProperties.Reconnect reconnect) {
+		this(reconnect, new AtomicLong(), "Twitter stream");
+	}
+
+	private StreamReconnectSupervisor(TwitterStreamSourceProperties.Reconnect reconnect, AtomicLong reconnectCount,
+			String name) {
+		this.reconnect = reconnect;
+		this.reconnectCount = reconnectCount;
+		this.name = name;
+	}
+
+	/**
+	 * @param shard Index of the stream shard.
+	 * @return a supervisor with its own consecutive failures and backoff, counting its reconnects into this one.
+	 */
+	public StreamReconnectSupervisor forShard(int shard) {
+		return new StreamReconnectSupervisor(this.reconnect, this.reconnectCount, "Twitter stream shard #" + shard);
+	}
+
+	/**
+	 * Re-subscribes to the stream flux on recoverable errors.
+	 */
+	public <T> Flux<T> apply(Flux<T> stream) {
+
+		if (!this.reconnect.isEnabled()) {
+			return stream;
+		}
+
+		return stream
+				.doOnNext(message -> this.connected())
+				.retryWhen(errors -> errors.concatMap(error -> {
+					if (!isRecoverable(error)) {
+						return Mono.error(error);
+					}
+					Duration delay = this.nextDelay();
+					logger.warn(String.format("%s failure #%s, reconnecting in %s ms",
+							this.name, this.consecutiveFailures.get(), delay.toMillis()), error);
+					return Mono.delay(delay).doOnNext(tick -> this.reconnectCount.incrementAndGet());
+				}));
+	}
+
+	private boolean isRecoverable(Throwable error) {
+		return !(error instanceof IllegalArgumentException || error instanceof IllegalStateException);
+	}
+
+	private void connected() {
+		if (this.consecutiveFailures.get() > 0) {
+			this.consecutiveFailures.set(0);
+		}
+	}
+
+	/**
+	 * Registers a failure and computes the delay before the next reconnect attempt.
+	 * @return the reconnect delay.
+	 */
+	Duration nextDelay() {
+
+		int failures = this.consecutiveFailures.incrementAndGet();
+
+		if (failures > this.reconnect.getCircuitBreakerThreshold()) {
+			logger.error(String.format("%s circuit open after %s consecutive failures. Next attempt in %s ms",
+					this.name, failures, this.reconnect.getCircuitBreakerTimeout()));
+			return Duration.ofMillis(this.reconnect.getCircuitBreakerTimeout());
+		}
+
+		double backoff = Math.min(this.reconnect.getMaxBackoff(),
+				this.reconnect.getInitialBackoff() * Math.pow(this.reconnect.getMultiplier(), failures - 1));
+
+		double jitter = backoff * this.reconnect.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+
+		return Duration.ofMillis(Math.max(0, Math.round(backoff + jitter)));
+	}
+
+	/**
+	 * @return Total number of stream reconnect attempts, over all shards.
+	 */
+	public long getReconnectCount() {
+		return this.reconnectCount.get();
+	}
+
+	/**
+	 * @return Number of failures since the last successfully received message.
+	 */
+	public int getConsecutiveFailures() {
+		return this.consecutiveFailures.get();
+	}
+}
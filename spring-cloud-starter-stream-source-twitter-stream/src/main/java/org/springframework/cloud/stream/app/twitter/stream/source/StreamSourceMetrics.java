@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer instrumentation of the stream source hot path. Helps to tell whether a slow pipeline is caused by
+ * Twitter, by the status serialization or by the output binder:
+ *
+ * - twitter.stream.messages : messages received from Twitter, tagged by event type (status, delete ...).
+ * - twitter.stream.serialization : Status to JSON serialization latency (with percentile histogram).
+ * - twitter.stream.payload : output payload size in bytes.
+ * - twitter.stream.pending : tweets and events emitted by the stream listeners but not yet handed to the binder.
+ *   Includes the ones waiting in the reactive stream, overflow buffer, output thread and batch queues. The dropped
+ *   tweets and the ones discarded when the output stream terminates are not counted.
+ * - twitter.stream.buffered, twitter.stream.dropped : overflow buffer usage and discarded tweets.
+ * - twitter.stream.track.limitations : track limitation notices and the last reported number of undelivered tweets,
+ *   in both the status and the raw pass-through modes.
+ * - twitter.stream.reconnects : stream reconnect attempts.
+ * - twitter.stream.duplicates : tweets dropped by the de-duplication.
+ * - twitter.stream.filtered : tweets dropped by the local pre-filter.
+ *
+ * The rates (e.g. tweets/sec, bytes/sec) are derived from the counters by the metrics backend.
+ *
+ * @author Christian Tzolov
+ */
+public class StreamSourceMetrics {
+
+	private final Map<StreamEventType, Counter> messageCounters = new EnumMap<>(StreamEventType.class);
+
+	private final Timer serializationTimer;
+
+	private final DistributionSummary payloadSize;
+
+	private final Counter trackLimitationNotices;
+
+	private final AtomicLong trackLimitedCount = new AtomicLong();
+
+	private final AtomicLong pendingCount = new AtomicLong();
+
+	private final StreamOverflowBuffer overflowBuffer;
+
+	public StreamSourceMetrics(MeterRegistry registry, StreamOverflowBuffer overflowBuffer,
+			StreamReconnectSupervisor reconnectSupervisor, TweetDeduplicator tweetDeduplicator,
+			TweetPrefilter tweetPrefilter) {
+
+		this.overflowBuffer = overflowBuffer;
+
+		for (StreamEventType eventType : StreamEventType.values()) {
+			this.messageCounters.put(eventType, Counter.builder("twitter.stream.messages")
+					.description("Messages received from the Twitter stream")
+					.tag("type", eventType.name())
+					.register(registry));
+		}
+
+		this.serializationTimer = Timer.builder("twitter.stream.serialization")
+				.description("Status to JSON serialization time")
+				.publishPercentileHistogram()
+				.register(registry);
+
+		this.payloadSize = DistributionSummary.builder("twitter.stream.payload")
+				.description("Size of the emitted message payloads")
+				.baseUnit("bytes")
+				.register(registry);
+
+		this.trackLimitationNotices = Counter.builder("twitter.stream.track.limitations")
+				.description("Track limitation notices received")
+				.register(registry);
+
+		Gauge.builder("twitter.stream.track.limited", this.trackLimitedCount, AtomicLong::get)
+				.description("Undelivered tweets reported by the last track limitation notice")
+				.register(registry);
+
+		// The tweets dropped by the overflow buffer are never sent.
+		Gauge.builder("twitter.stream.pending", this,
+				metrics -> metrics.pendingCount.get() - overflowBuffer.getDroppedCount())
+				.description("Messages emitted by the stream listeners but not yet handed to the binder")
+				.register(registry);
+
+		Gauge.builder("twitter.stream.buffered", overflowBuffer, StreamOverflowBuffer::getBufferedCount)
+				.description("Tweets waiting in the overflow buffer")
+				.register(registry);
+
+		FunctionCounter.builder("twitter.stream.dropped", overflowBuffer, StreamOverflowBuffer::getDroppedCount)
+				.description("Tweets discarded because of a full overflow buffer")
+				.register(registry);
+
+		FunctionCounter.builder("twitter.stream.reconnects", reconnectSupervisor,
+				StreamReconnectSupervisor::getReconnectCount)
+				.description("Stream reconnect attempts")
+				.register(registry);
+
+		FunctionCounter.builder("twitter.stream.duplicates", tweetDeduplicator, TweetDeduplicator::getHitCount)
+				.description("Tweets dropped as duplicates")
+				.register(registry);
+
+		FunctionCounter.builder("twitter.stream.filtered", tweetPrefilter, TweetPrefilter::getFilteredCount)
+				.description("Tweets dropped by the local pre-filter")
+				.register(registry);
+	}
+
+	/**
+	 * Records a message emitted by a stream listener.
+	 */
+	public void emitted(StreamEventType eventType, int payloadBytes) {
+		this.messageCounters.get(eventType).increment();
+		this.payloadSize.record(payloadBytes);
+		this.pendingCount.incrementAndGet();
+	}
+
+	/**
+	 * Records an output message handed over to the binder.
+	 * @param messages Number of emitted messages (e.g. tweets in a batch) carried by the output message.
+	 */
+	public void sent(int messages) {
+		this.pendingCount.addAndGet(-messages);
+	}
+
+	/**
+	 * Records the termination of the output stream. The messages still queued at that point (e.g. in the overflow
+	 * buffer or in an unflushed batch) are discarded and never sent.
+	 */
+	public void discarded() {
+		this.pendingCount.set(this.overflowBuffer.getDroppedCount());
+	}
+
+	public void serialized(long startNanos) {
+		this.serializationTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void trackLimited(int numberOfLimitedStatuses) {
+		this.trackLimitationNotices.increment();
+		this.trackLimitedCount.set(numberOfLimitedStatuses);
+	}
+}
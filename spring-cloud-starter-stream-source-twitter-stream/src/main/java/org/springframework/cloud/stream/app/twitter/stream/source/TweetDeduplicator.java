@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.springframework.util.Assert;
+
+/**
+ * Remembers the IDs of the most recently received tweets in order to drop the tweets delivered more than once,
+ * for example after a stream reconnect or when a tweet matches the filters of multiple stream shards.
+ *
+ * The IDs are kept in a fixed size, open-addressing table of primitive longs, so the memory footprint is bounded
+ * (8 bytes per slot) and no boxing happens on the stream listener threads. Slots are claimed with compare-and-set,
+ * so concurrent listeners never block each other. A lookup probes up to PROBES consecutive slots; when all of them
+ * are taken one is overwritten, evicting an older ID.
+ *
+ * @author Christian Tzolov
+ */
+public class TweetDeduplicator {
+
+	private static final int PROBES = 8;
+
+	private static final long EMPTY = 0;
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final boolean enabled;
+
+	private final AtomicLongArray slots;
+
+	private final int mask;
+
+	private final AtomicLong evictionCursor = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	public TweetDeduplicator(boolean enabled, int capacity) {
+		Assert.isTrue(capacity > 0, "The deduplication capacity must be positive but was: " + capacity);
+		int size = Math.max(PROBES, Integer.highestOneBit(capacity - 1) << 1);
+		this.enabled = enabled;
+		this.slots = new AtomicLongArray(enabled ? size : 0);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * @param statusId ID of the received tweet.
+	 * @return true if a tweet with the same ID was received recently.
+	 */
+	public boolean isDuplicate(long statusId) {
+		if (!this.enabled || statusId <= EMPTY) {
+			return false;
+		}
+
+		int start = hash(statusId) & this.mask;
+
+		for (int probe = 0; probe < PROBES; probe++) {
+			int index = (start + probe) & this.mask;
+			long id = this.slots.get(index);
+			if (id == EMPTY && this.slots.compareAndSet(index, EMPTY, statusId)) {
+				this.missCount.incrementAndGet();
+				return false;
+			}
+			// Re-read in case a concurrent listener has just claimed the slot.
+			if (id == statusId || this.slots.get(index) == statusId) {
+				this.hitCount.incrementAndGet();
+				return true;
+			}
+		}
+
+		int victim = (start + (int) (this.evictionCursor.getAndIncrement() % PROBES)) & this.mask;
+		this.slots.set(victim, statusId);
+		this.missCount.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Raw stream variant of the duplicates check. Only the status messages, with a top level ID, are checked. All
+	 * other stream messages (e.g. delete or limit notices) are never considered duplicates.
+	 */
+	public boolean isDuplicate(String json) {
+		return this.enabled && this.isDuplicate(statusId(json));
+	}
+
+	/**
+	 * Extracts the tweet ID from the top level id_str (or id) field of the raw status JSON. The JSON is streamed,
+	 * without building a tree, the nested objects are skipped and the parsing stops as soon as the ID is found.
+	 * @param json Raw JSON message as received from the Twitter Stream API.
+	 * @return the tweet ID or -1 if the message is not a status.
+	 */
+	static long statusId(String json) {
+		try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return -1;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if ("id_str".equals(field) && value == JsonToken.VALUE_STRING) {
+					return Long.parseLong(parser.getText());
+				}
+				if ("id".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+					return parser.getLongValue();
+				}
+				parser.skipChildren();
+			}
+		}
+		catch (IOException | NumberFormatException e) {
+			// Not a status message
+		}
+		return -1;
+	}
+
+	/**
+	 * The status IDs are time ordered, so their bits are mixed (MurmurHash3 finalizer) before picking a slot.
+	 */
+	private static int hash(long id) {
+		id ^= id >>> 33;
+		id *= 0xff51afd7ed558ccdL;
+		id ^= id >>> 33;
+		id *= 0xc4ceb9fe1a85ec53L;
+		id ^= id >>> 33;
+		return (int) id;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * @return Number of tweets dropped as duplicates.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * @return Number of tweets seen for the first time.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import twitter4j.Status;
+
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Local tweet filter applied before the tweets are serialized and sent to the binder. Complements the server side
+ * FilterQuery with criteria the Twitter Stream API does not support: minimum followers, attached media, no retweets,
+ * text regular expression and a language whitelist.
+ *
+ * The text pattern is matched against the same text in both modes: the full_text of the status if present,
+ * otherwise its text, as returned by Status#getText(). Likewise the media are looked up in the top level entities
+ * only. The extended_tweet part of the compatibility mode tweets is not considered.
+ *
+ * The criteria are compiled once. Raw JSON messages are checked with a streaming parser that skips the irrelevant
+ * fields and matches the text in place, so no intermediate strings or trees are built. The parsing stops as soon as
+ * a criteria fails. Only status messages are filtered, all other stream messages are let through.
+ *
+ * @author Christian Tzolov
+ */
+public class TweetPrefilter {
+
+	private static final Log logger = LogFactory.getLog(TweetPrefilter.class);
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	private final boolean enabled;
+
+	private final int minFollowers;
+
+	private final boolean hasMedia;
+
+	private final boolean excludeRetweets;
+
+	private final Pattern textPattern;
+
+	private final Set<String> languages;
+
+	private final AtomicLong filteredCount = new AtomicLong();
+
+	public TweetPrefilter(TwitterStreamSourceProperties.Prefilter prefilter) {
+		this.enabled = prefilter.isEnabled();
+		this.minFollowers = prefilter.getMinFollowers();
+		this.hasMedia = prefilter.isHasMedia();
+		this.excludeRetweets = prefilter.isExcludeRetweets();
+		this.textPattern = StringUtils.hasText(prefilter.getTextPattern()) ?
+				Pattern.compile(prefilter.getTextPattern()) : null;
+		this.languages = CollectionUtils.isEmpty(prefilter.getLanguages()) ?
+				null : new HashSet<>(prefilter.getLanguages());
+	}
+
+	/**
+	 * @param status Tweet received from the stream.
+	 * @return true if the tweet should be emitted.
+	 */
+	public boolean test(Status status) {
+		return !this.enabled || this.counted(this.accept(status));
+	}
+
+	/**
+	 * @param json Raw JSON message as received from the Twitter Stream API.
+	 * @return true if the message should be emitted.
+	 */
+	public boolean test(String json) {
+		return !this.enabled || this.counted(this.accept(json));
+	}
+
+	/**
+	 * @return Number of tweets dropped by the filter.
+	 */
+	public long getFilteredCount() {
+		return this.filteredCount.get();
+	}
+
+	private boolean counted(boolean accepted) {
+		if (!accepted) {
+			this.filteredCount.incrementAndGet();
+		}
+		return accepted;
+	}
+
+	private boolean accept(Status status) {
+		if (this.excludeRetweets && status.isRetweet()) {
+			return false;
+		}
+		if (this.languages != null && !this.languages.contains(status.getLang())) {
+			return false;
+		}
+		if (this.minFollowers > 0 && (status.getUser() == null
+				|| status.getUser().getFollowersCount() < this.minFollowers)) {
+			return false;
+		}
+		if (this.hasMedia && status.getMediaEntities().length == 0) {
+			return false;
+		}
+		return this.textPattern == null
+				|| (status.getText() != null && this.textPattern.matcher(status.getText()).find());
+	}
+
+	private boolean accept(String json) {
+
+		if (StreamEventType.of(json) != StreamEventType.status) {
+			return true;
+		}
+
+		try (JsonParser parser = this.jsonFactory.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return true;
+			}
+
+			Match match = new Match();
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				switch (field) {
+				case "retweeted_status": {
+					if (this.excludeRetweets && token == JsonToken.START_OBJECT) {
+						return false;
+					}
+					parser.skipChildren();
+					break;
+				}
+				case "lang": {
+					match.lang = true;
+					if (this.languages != null && !this.languages.contains(parser.getValueAsString())) {
+						return false;
+					}
+					break;
+				}
+				case "user": {
+					match.user = true;
+					if (this.minFollowers > 0 && followersCount(parser) < this.minFollowers) {
+						return false;
+					}
+					parser.skipChildren();
+					break;
+				}
+				default: {
+					this.field(parser, field, match);
+				}
+				}
+			}
+
+			// Like in the status mode, a tweet without a language or a user fails the respective criteria.
+			return (this.languages == null || match.lang)
+					&& (this.minFollowers <= 0 || match.user)
+					&& (!this.hasMedia || match.media)
+					&& (this.textPattern == null || (match.hasFullText ? match.fullText : match.text));
+		}
+		catch (IOException e) {
+			logger.warn("Failed to pre-filter the raw status, letting it through", e);
+			return true;
+		}
+	}
+
+	/**
+	 * Checks the remaining top level status fields.
+	 */
+	private void field(JsonParser parser, String field, Match match) throws IOException {
+		switch (field) {
+		case "text": {
+			match.text = this.matchesText(parser);
+			break;
+		}
+		case "full_text": {
+			match.hasFullText = true;
+			match.fullText = this.matchesText(parser);
+			break;
+		}
+		case "entities":
+		case "extended_entities": {
+			if (this.hasMedia && !match.media) {
+				match.media = hasMedia(parser);
+			}
+			parser.skipChildren();
+			break;
+		}
+		default: {
+			parser.skipChildren();
+		}
+		}
+	}
+
+	private boolean matchesText(JsonParser parser) throws IOException {
+		return this.textPattern != null && parser.currentToken() == JsonToken.VALUE_STRING
+				&& this.textPattern.matcher(CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(),
+				parser.getTextLength())).find();
+	}
+
+	/**
+	 * Reads the followers_count of the user object. Leaves the parser at the end of the user object.
+	 */
+	private static int followersCount(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			return 0;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			if ("followers_count".equals(field)) {
+				int count = parser.getValueAsInt();
+				skipRemainingFields(parser);
+				return count;
+			}
+			parser.skipChildren();
+		}
+		return 0;
+	}
+
+	/**
+	 * @return true if the entities object has a non empty media array. Leaves the parser at the end of the object.
+	 */
+	private static boolean hasMedia(JsonParser parser) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			return false;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			if ("media".equals(field) && token == JsonToken.START_ARRAY) {
+				boolean notEmpty = parser.nextToken() != JsonToken.END_ARRAY;
+				parser.skipChildren();
+				while (notEmpty && parser.nextToken() != JsonToken.END_ARRAY) {
+					parser.skipChildren();
+				}
+				skipRemainingFields(parser);
+				return notEmpty;
+			}
+			parser.skipChildren();
+		}
+		return false;
+	}
+
+	private static void skipRemainingFields(JsonParser parser) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			parser.nextToken();
+			parser.skipChildren();
+		}
+	}
+
+	private static class Match {
+
+		boolean lang;
+
+		boolean user;
+
+		boolean media;
+
+		boolean text;
+
+		boolean hasFullText;
+
+		boolean fullText;
+	}
+}
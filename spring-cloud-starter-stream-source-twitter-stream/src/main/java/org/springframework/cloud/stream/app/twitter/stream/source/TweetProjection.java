@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.cloud.stream.app.twitter.common.PayloadBuffer;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Limits the emitted tweet JSON to a selected set of fields. The fields are given as dot separated paths
+ * (e.g. id, text, user.screen_name, entities.hashtags.text). Selecting an object field includes the whole object.
+ * A path segment applied to an array selects the field of every array element.
+ *
+ * The paths are compiled into a token filter, so the tweets are streamed straight into the pooled output buffer and
+ * only the selected fields are ever written. Note that the raw JSON uses the Twitter API field names (screen_name),
+ * while the serialized Status objects use the Twitter4J property names (screenName).
+ *
+ * @author Christian Tzolov
+ */
+public class TweetProjection {
+
+	private final PathFilter filter;
+
+	public TweetProjection(List<String> fields) {
+		if (CollectionUtils.isEmpty(fields)) {
+			this.filter = null;
+		}
+		else {
+			this.filter = new PathFilter();
+			for (String field : fields) {
+				PathFilter node = this.filter;
+				for (String segment : field.trim().split("\\.")) {
+					node = node.children.computeIfAbsent(segment, name -> new PathFilter());
+				}
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return this.filter != null;
+	}
+
+	/**
+	 * Serializes the selected fields of the value.
+	 */
+	public byte[] write(ObjectMapper objectMapper, Object value) throws IOException {
+		JsonFactory jsonFactory = objectMapper.getFactory();
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		try {
+			try (JsonGenerator generator = this.filtering(jsonFactory.createGenerator(buffer))) {
+				objectMapper.writeValue(generator, value);
+			}
+			return buffer.toByteArray();
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	/**
+	 * Copies the selected fields of the JSON document.
+	 */
+	public byte[] write(JsonFactory jsonFactory, String json) throws IOException {
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		try (JsonParser parser = jsonFactory.createParser(json)) {
+			try (JsonGenerator generator = this.filtering(jsonFactory.createGenerator(buffer))) {
+				parser.nextToken();
+				generator.copyCurrentStructure(parser);
+			}
+			return buffer.toByteArray();
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	private JsonGenerator filtering(JsonGenerator generator) {
+		return new FilteringGeneratorDelegate(generator, this.filter, true, true);
+	}
+
+	/**
+	 * Includes the properties with a matching path node. A leaf node includes the whole property value.
+	 */
+	private static class PathFilter extends TokenFilter {
+
+		private final Map<String, PathFilter> children = new HashMap<>();
+
+		@Override
+		public TokenFilter includeProperty(String name) {
+			PathFilter child = this.children.get(name);
+			if (child == null) {
+				return null;
+			}
+			return child.children.isEmpty() ? TokenFilter.INCLUDE_ALL : child;
+		}
+	}
+}
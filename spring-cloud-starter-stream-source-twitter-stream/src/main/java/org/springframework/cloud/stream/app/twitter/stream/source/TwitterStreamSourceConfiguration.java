@@ -16,24 +16,45 @@
 
 package org.springframework.cloud.stream.app.twitter.stream.source;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import twitter4j.FilterQuery;
+import twitter4j.RawStreamListener;
 import twitter4j.StallWarning;
 import twitter4j.Status;
 import twitter4j.StatusDeletionNotice;
 import twitter4j.StatusListener;
+import twitter4j.StreamListener;
 import twitter4j.TwitterStream;
+import twitter4j.TwitterStreamFactory;
+import twitter4j.conf.ConfigurationBuilder;
 
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.annotation.Output;
+import org.springframework.cloud.stream.app.twitter.common.PayloadBuffer;
 import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionConfiguration;
+import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionProperties;
 import org.springframework.cloud.stream.messaging.Source;
 import org.springframework.cloud.stream.reactive.StreamEmitter;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
@@ -51,133 +72,438 @@ public class TwitterStreamSourceConfiguration {
 
 	private static final Log logger = LogFactory.getLog(TwitterStreamSourceConfiguration.class);
 
+	public static final String NDJSON_VALUE = "application/x-ndjson";
+
+	public static final String BATCH_SIZE_HEADER = "twitter_batch_size";
+
 	@Autowired
 	private TwitterStream twitterStream;
 
 	@Autowired
 	private TwitterStreamSourceProperties streamProperties;
 
+	@Autowired
+	private StreamOverflowBuffer overflowBuffer;
+
+	@Autowired
+	private StreamReconnectSupervisor reconnectSupervisor;
+
+	@Autowired
+	private TweetDeduplicator tweetDeduplicator;
+
+	@Autowired
+	private StreamSourceMetrics metrics;
+
+	@Autowired
+	private TweetPrefilter tweetPrefilter;
+
+	@Autowired
+	private TweetProjection tweetProjection;
+
+	@Autowired
+	private TwitterConnectionProperties connectionProperties;
+
+	@Autowired
+	private Function<TwitterConnectionProperties, ConfigurationBuilder> toConfigurationBuilder;
+
 	private ObjectMapper objectMapper = new ObjectMapper();
 
+	@Bean
+	public StreamOverflowBuffer streamOverflowBuffer(TwitterStreamSourceProperties streamProperties) {
+		return new StreamOverflowBuffer(streamProperties.getOverflow());
+	}
+
+	@Bean
+	public StreamReconnectSupervisor streamReconnectSupervisor(TwitterStreamSourceProperties streamProperties) {
+		return new StreamReconnectSupervisor(streamProperties.getReconnect());
+	}
+
+	@Bean
+	public TweetDeduplicator tweetDeduplicator(TwitterStreamSourceProperties streamProperties) {
+		TwitterStreamSourceProperties.Deduplication deduplication = streamProperties.getDeduplication();
+		return new TweetDeduplicator(deduplication.isEnabled() || streamProperties.getSharding().isEnabled(),
+				deduplication.getCapacity());
+	}
+
+	@Bean
+	public TweetPrefilter tweetPrefilter(TwitterStreamSourceProperties streamProperties) {
+		return new TweetPrefilter(streamProperties.getPrefilter());
+	}
+
+	@Bean
+	public TweetProjection tweetProjection(TwitterStreamSourceProperties streamProperties) {
+		return new TweetProjection(streamProperties.getProjection().getFields());
+	}
+
+	@Bean
+	public StreamSourceMetrics streamSourceMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+			StreamOverflowBuffer overflowBuffer, StreamReconnectSupervisor reconnectSupervisor,
+			TweetDeduplicator tweetDeduplicator, TweetPrefilter tweetPrefilter) {
+		return new StreamSourceMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+				overflowBuffer, reconnectSupervisor, tweetDeduplicator, tweetPrefilter);
+	}
+
 	@StreamEmitter
 	@Output(Source.OUTPUT)
 	public Flux<Message<byte[]>> emit() {
 
-		return Flux.create(emitter -> {
-
-			//RawStreamListener rawListener = new RawStreamListener() {
-			//	@Override
-			//	public void onMessage(String json) {
-			//		Message<byte[]> message = MessageBuilder
-			//				.withPayload(json.getBytes())
-			//				.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
-			//				.build();
-			//		emitter.next(message);
-			//
-			//		//try {
-			//		//	Status status = TwitterObjectFactory.createStatus(json);
-			//		//	status.getPlace();
-			//		//	System.out.println(status);
-			//		//}
-			//		//catch (TwitterException e) {
-			//		//	e.printStackTrace();
-			//		//}
-			//		////System.out.println(json);
-			//		//System.out.println();
-			//		//System.out.println();
-			//	}
-			//
-			//	@Override
-			//	public void onException(Exception ex) {
-			//		logger.error("Status Error: ", ex);
-			//		emitter.error(new RuntimeException("Status Error: ", ex));
-			//	}
-			//};
-
-			StatusListener listener = new StatusListener() {
-
-				@Override
-				public void onException(Exception e) {
-					logger.error("Status Error: ", e);
-					emitter.error(new RuntimeException("Status Error: ", e));
+		Flux<Message<byte[]>> tweets = this.streamProperties.getSharding().isEnabled() ?
+				Flux.merge(shardedStreams()) :
+				stream(this.twitterStream, this::startStreaming, this.reconnectSupervisor);
+
+		return batch(this.overflowBuffer.apply(tweets), this.streamProperties.getBatch())
+				.doOnNext(message -> this.metrics.sent(batchSize(message)))
+				.doFinally(signal -> this.metrics.discarded());
+	}
+
+	/**
+	 * Opens one stream connection per shard. The first shard uses the default twitter.connection, the rest use the
+	 * twitter.stream.sharding.connections credentials. Every shard reconnects with its own backoff.
+	 *
+	 * Note that Twitter4J dispatches the messages of all stream connections on a single, static dispatcher thread.
+	 * The shards multiply the filter capacity and isolate the connection failures, but their listeners do not run
+	 * in parallel.
+	 */
+	private List<Flux<Message<byte[]>>> shardedStreams() {
+
+		if (this.streamProperties.getType() != TwitterStreamSourceProperties.StreamType.filter) {
+			throw new IllegalStateException("Sharding is applicable only for the filter stream type");
+		}
+
+		List<TwitterConnectionProperties> shardConnections = this.streamProperties.getSharding().getConnections();
+
+		List<FilterQuery> shardQueries =
+				this.streamProperties.getFilter().toFilterQueries(shardConnections.size() + 1);
+
+		List<Flux<Message<byte[]>>> streams = new ArrayList<>();
+		for (int shard = 0; shard < shardQueries.size(); shard++) {
+			FilterQuery shardQuery = shardQueries.get(shard);
+			TwitterStream shardStream = (shard == 0) ?
+					this.twitterStream : shardTwitterStream(shardConnections.get(shard - 1));
+			streams.add(stream(shardStream, twitterStream -> twitterStream.filter(shardQuery),
+					this.reconnectSupervisor.forShard(shard)));
+		}
+
+		logger.info(String.format("Filter split into %s stream shards", streams.size()));
+
+		return streams;
+	}
+
+	/**
+	 * The shard connection settings are copied from the default twitter.connection, only the credentials are taken
+	 * from the shard connection. The bound properties are left untouched.
+	 */
+	private TwitterStream shardTwitterStream(TwitterConnectionProperties shardConnection) {
+		TwitterConnectionProperties shardProperties = new TwitterConnectionProperties();
+		BeanUtils.copyProperties(this.connectionProperties, shardProperties);
+		shardProperties.setConsumerKey(shardConnection.getConsumerKey());
+		shardProperties.setConsumerSecret(shardConnection.getConsumerSecret());
+		shardProperties.setAccessToken(shardConnection.getAccessToken());
+		shardProperties.setAccessTokenSecret(shardConnection.getAccessTokenSecret());
+		return new TwitterStreamFactory(this.toConfigurationBuilder.apply(shardProperties).build()).getInstance();
+	}
+
+	/**
+	 * Creates a flux of the tweets received over a single stream connection. The connection is re-established on
+	 * failure by the reconnect supervisor.
+	 * @param twitterStream Stream connection to listen to.
+	 * @param startStreaming Starts the filter, sample ... request on the connection.
+	 * @param reconnectSupervisor Reconnect supervisor of the connection.
+	 */
+	private Flux<Message<byte[]>> stream(TwitterStream twitterStream, Consumer<TwitterStream> startStreaming,
+			StreamReconnectSupervisor reconnectSupervisor) {
+
+		Flux<Message<byte[]>> stream = Flux.create(emitter -> {
+
+			StreamListener listener = this.streamProperties.isRawPassThrough() ?
+					rawStreamListener(emitter) : statusListener(emitter);
+
+			twitterStream.addListener(listener);
+
+			try {
+				startStreaming.accept(twitterStream);
+			}
+			catch (Exception e) {
+				this.logger.error("Filter is not property set");
+				emitter.error(e);
+			}
+
+			emitter.onDispose(() -> {
+				this.logger.info("Emitter cancellation, proactive cancel for twitter stream");
+				twitterStream.removeListener(listener);
+				twitterStream.shutdown();
+			});
+		}, FluxSink.OverflowStrategy.BUFFER);
+
+		return reconnectSupervisor.apply(stream);
+	}
+
+	/**
+	 * Groups up to batch size tweets, or whatever arrived within the batch timeout, into a single message.
+	 */
+	static Flux<Message<byte[]>> batch(Flux<Message<byte[]>> tweets, TwitterStreamSourceProperties.Batch batch) {
+
+		if (!batch.isEnabled()) {
+			return tweets;
+		}
+
+		// Only the tweets are batched, the compliance events and notices are passed through as they arrive.
+		return tweets.publish(messages -> Flux.merge(
+				messages.filter(TwitterStreamSourceConfiguration::isStatus)
+						.bufferTimeout(batch.getSize(), Duration.ofMillis(batch.getTimeout()))
+						.filter(statuses -> !statuses.isEmpty())
+						.map(statuses -> toBatchMessage(statuses, batch.getFormat())),
+				messages.filter(message -> !isStatus(message))));
+	}
+
+	private static int batchSize(Message<byte[]> message) {
+		Integer size = message.getHeaders().get(BATCH_SIZE_HEADER, Integer.class);
+		return (size != null) ? size : 1;
+	}
+
+	private static boolean isStatus(Message<byte[]> message) {
+		return StreamEventType.status.name().equals(message.getHeaders().get(StreamEventType.HEADER));
+	}
+
+	private static Message<byte[]> toBatchMessage(List<Message<byte[]>> messages,
+			TwitterStreamSourceProperties.Batch.Format format) {
+
+		boolean json = format == TwitterStreamSourceProperties.Batch.Format.json;
+
+		// JSON: '[' + tweets separated by ',' + ']'. NDJSON: each tweet followed by '\n'.
+		int length = json ? messages.size() + 1 : messages.size();
+		for (Message<byte[]> message : messages) {
+			length += message.getPayload().length;
+		}
+
+		byte[] payload = new byte[length];
+		int position = 0;
+		if (json) {
+			payload[position++] = '[';
+		}
+		for (int i = 0; i < messages.size(); i++) {
+			byte[] tweet = messages.get(i).getPayload();
+			if (json && i > 0) {
+				payload[position++] = ',';
+			}
+			System.arraycopy(tweet, 0, payload, position, tweet.length);
+			position += tweet.length;
+			if (!json) {
+				payload[position++] = '\n';
+			}
+		}
+		if (json) {
+			payload[position] = ']';
+		}
+
+		return MessageBuilder
+				.withPayload(payload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, json ? MimeTypeUtils.APPLICATION_JSON_VALUE : NDJSON_VALUE)
+				.setHeader(BATCH_SIZE_HEADER, messages.size())
+				.setHeader(StreamEventType.HEADER, StreamEventType.status.name())
+				.build();
+	}
+
+	/**
+	 * Passes the JSON lines received from the Twitter Stream API directly to the output messages. When only raw
+	 * listeners are registered Twitter4J skips the JSON parsing altogether, so no Status object is ever created.
+	 */
+	private RawStreamListener rawStreamListener(FluxSink<Message<byte[]>> emitter) {
+		return new RawStreamListener() {
+
+			@Override
+			public void onMessage(String json) {
+				if (!tweetPrefilter.test(json) || tweetDeduplicator.isDuplicate(json)) {
+					return;
 				}
 
-				@Override
-				public void onDeletionNotice(StatusDeletionNotice arg) {
-					logger.info("StatusDeletionNotice: " + arg);
+				StreamEventType eventType = StreamEventType.of(json);
+
+				if (eventType == StreamEventType.limit) {
+					trackLimited(json);
 				}
 
-				@Override
-				public void onScrubGeo(long userId, long upToStatusId) {
-					logger.info("onScrubGeo: " + userId + ", " + upToStatusId);
+				if (eventType.isComplianceEvent() && !streamProperties.isComplianceEvents()) {
+					return;
 				}
 
-				@Override
-				public void onStallWarning(StallWarning warning) {
-					logger.warn("Stall Warning: " + warning);
-					emitter.error(new RuntimeException("Stall Warning: " + warning));
+				if (eventType == StreamEventType.status && tweetProjection.isEnabled()) {
+					try {
+						emitMessage(emitter, tweetProjection.write(objectMapper.getFactory(), json), eventType);
+					}
+					catch (IOException e) {
+						logger.error("Status projection error!", e);
+						emitter.error(new RuntimeException("Status projection error!", e));
+					}
+					return;
 				}
 
-				@Override
-				public void onStatus(Status status) {
+				emitMessage(emitter, json.getBytes(StandardCharsets.UTF_8), eventType);
+			}
+
+			@Override
+			public void onException(Exception e) {
+				logger.error("Status Error: ", e);
+				emitter.error(new RuntimeException("Status Error: ", e));
+			}
+		};
+	}
+
+	/**
+	 * Records the raw track limitation notice: {"limit":{"track":..,"timestamp_ms":..}}
+	 */
+	private void trackLimited(String json) {
+		try {
+			int numberOfLimitedStatuses = this.objectMapper.readTree(json).path("limit").path("track").asInt();
+			this.metrics.trackLimited(numberOfLimitedStatuses);
+			logger.warn("Track Limitation Notice: " + numberOfLimitedStatuses);
+		}
+		catch (IOException e) {
+			logger.warn("Invalid track limitation notice: " + json, e);
+		}
+	}
 
+	private StatusListener statusListener(FluxSink<Message<byte[]>> emitter) {
+		return new StatusListener() {
+
+			@Override
+			public void onException(Exception e) {
+				logger.error("Status Error: ", e);
+				emitter.error(new RuntimeException("Status Error: ", e));
+			}
+
+			@Override
+			public void onDeletionNotice(StatusDeletionNotice notice) {
+				if (streamProperties.isComplianceEvents()) {
 					try {
-						String json = objectMapper.writeValueAsString(status);
-						Message<byte[]> message = MessageBuilder
-								.withPayload(json.getBytes())
-								.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
-								.build();
-						emitter.next(message);
-
-//						System.out.println(json);
+						emitMessage(emitter, deletionEvent(notice.getStatusId(), notice.getUserId()),
+								StreamEventType.delete);
 					}
-					catch (JsonProcessingException e) {
-						logger.error("Status to JSON conversion error!", e);
-						emitter.error(new RuntimeException("Status to JSON conversion error!", e));
+					catch (IOException e) {
+						logger.error("Deletion notice to JSON conversion error!", e);
+						emitter.error(new RuntimeException("Deletion notice to JSON conversion error!", e));
 					}
 				}
+			}
 
-				@Override
-				public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
-					logger.warn("Track Limitation Notice: " + numberOfLimitedStatuses);
+			@Override
+			public void onScrubGeo(long userId, long upToStatusId) {
+				if (streamProperties.isComplianceEvents()) {
+					try {
+						emitMessage(emitter, scrubGeoEvent(userId, upToStatusId), StreamEventType.scrub_geo);
+					}
+					catch (IOException e) {
+						logger.error("Scrub geo notice to JSON conversion error!", e);
+						emitter.error(new RuntimeException("Scrub geo notice to JSON conversion error!", e));
+					}
 				}
-			};
+			}
 
-			this.twitterStream.addListener(listener);
+			@Override
+			public void onStallWarning(StallWarning warning) {
+				// Advisory only. If the client keeps falling behind Twitter disconnects the stream and the
+				// reconnect supervisor takes over.
+				logger.warn("Stall Warning: " + warning);
+			}
 
-			try {
-				startStreaming();
+			@Override
+			public void onStatus(Status status) {
+
+				if (!tweetPrefilter.test(status) || tweetDeduplicator.isDuplicate(status.getId())) {
+					return;
+				}
+
+				try {
+					long start = System.nanoTime();
+					byte[] payload = tweetProjection.isEnabled() ?
+							tweetProjection.write(objectMapper, status) : toJson(status);
+					metrics.serialized(start);
+					emitMessage(emitter, payload, StreamEventType.status);
+				}
+				catch (IOException e) {
+					logger.error("Status to JSON conversion error!", e);
+					emitter.error(new RuntimeException("Status to JSON conversion error!", e));
+				}
 			}
-			catch (Exception e) {
-				this.logger.error("Filter is not property set");
-				emitter.error(e);
+
+			@Override
+			public void onTrackLimitationNotice(int numberOfLimitedStatuses) {
+				metrics.trackLimited(numberOfLimitedStatuses);
+				logger.warn("Track Limitation Notice: " + numberOfLimitedStatuses);
 			}
+		};
+	}
 
-			emitter.onDispose(() -> {
-				this.logger.info("Emitter cancellation, proactive cancel for twitter stream");
-				this.twitterStream.shutdown();
-			});
-		});
+	private byte[] toJson(Status status) throws IOException {
+		PayloadBuffer buffer = PayloadBuffer.acquire();
+		try {
+			this.objectMapper.writeValue(buffer, status);
+			return buffer.toByteArray();
+		}
+		finally {
+			buffer.release();
+		}
+	}
+
+	private void emitMessage(FluxSink<Message<byte[]>> emitter, byte[] payload, StreamEventType eventType) {
+		if (this.overflowBuffer.acquire()) {
+			this.metrics.emitted(eventType, payload.length);
+			emitter.next(toMessage(payload, eventType));
+		}
+	}
+
+	private Message<byte[]> toMessage(byte[] payload, StreamEventType eventType) {
+		return MessageBuilder
+				.withPayload(payload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+				.setHeader(StreamEventType.HEADER, eventType.name())
+				.build();
+	}
+
+	/**
+	 * Same layout as the delete notice of the Twitter Stream API: {"delete":{"status":{"id":..,"user_id":..}}}
+	 */
+	private byte[] deletionEvent(long statusId, long userId) throws IOException {
+		ObjectNode event = this.objectMapper.createObjectNode();
+		event.putObject("delete").putObject("status")
+				.put("id", statusId)
+				.put("id_str", String.valueOf(statusId))
+				.put("user_id", userId)
+				.put("user_id_str", String.valueOf(userId));
+		return this.objectMapper.writeValueAsBytes(event);
+	}
+
+	/**
+	 * Same layout as the scrub_geo notice of the Twitter Stream API: {"scrub_geo":{"user_id":..,"up_to_status_id":..}}
+	 */
+	private byte[] scrubGeoEvent(long userId, long upToStatusId) throws IOException {
+		ObjectNode event = this.objectMapper.createObjectNode();
+		event.putObject("scrub_geo")
+				.put("user_id", userId)
+				.put("user_id_str", String.valueOf(userId))
+				.put("up_to_status_id", upToStatusId)
+				.put("up_to_status_id_str", String.valueOf(upToStatusId));
+		return this.objectMapper.writeValueAsBytes(event);
 	}
 
-	private TwitterStream startStreaming() {
+	private TwitterStream startStreaming(TwitterStream twitterStream) {
 
 		switch (this.streamProperties.getType()) {
 
 		case filter: {
 			if (!this.streamProperties.getFilter().isValid()) {
-				throw new RuntimeException("Filter is not property set");
+				throw new IllegalStateException("Filter is not property set");
 			}
-			return this.twitterStream.filter(this.streamProperties.getFilter().toFilterQuery());
+			return twitterStream.filter(this.streamProperties.getFilter().toFilterQuery());
 		}
 		case sample: {
-			return this.twitterStream.sample();
+			return twitterStream.sample();
 		}
 		case firehose: {
-			return this.twitterStream.firehose(this.streamProperties.getFilter().getCount());
+			return twitterStream.firehose(this.streamProperties.getFilter().getCount());
 		}
 		case linkn: {
-			return this.twitterStream.links(this.streamProperties.getFilter().getCount());
+			return twitterStream.links(this.streamProperties.getFilter().getCount());
 		}
 
 		}
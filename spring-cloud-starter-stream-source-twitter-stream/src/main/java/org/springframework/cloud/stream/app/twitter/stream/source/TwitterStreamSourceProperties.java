@@ -19,10 +19,18 @@ package org.springframework.cloud.stream.app.twitter.stream.source;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
 import twitter4j.FilterQuery;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.stream.app.twitter.common.TwitterConnectionProperties;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -38,10 +46,104 @@ public class TwitterStreamSourceProperties {
 
 	private Filter filter = new Filter();
 
+	/**
+	 * Pass the raw JSON, as received from the Twitter Stream API, directly into the output message payloads.
+	 * Skips the Twitter4J Status parsing and the JSON re-serialization. Note that the limit notices are passed
+	 * through as well, and so are the delete, scrub_geo and other compliance notices if the compliance events are
+	 * enabled.
+	 */
+	private boolean rawPassThrough = false;
+
+	/**
+	 * Emit the status deletion and scrub_geo notices as output messages, in the Twitter Stream API JSON layout.
+	 * The twitter_event_type header (status, delete, scrub_geo ...) tells them apart from the tweets. The other
+	 * notices (warning, status_withheld ...) are always emitted in raw pass through mode.
+	 */
+	private boolean complianceEvents = false;
+
+	/**
+	 * Bounds the tweets buffered in memory when the output binding can not keep up with the stream.
+	 */
+	private Overflow overflow = new Overflow();
+
+	/**
+	 * Groups multiple tweets into a single output message.
+	 */
+	private Batch batch = new Batch();
+
+	/**
+	 * Reconnects the stream, with exponential backoff, when the connection fails.
+	 */
+	private Reconnect reconnect = new Reconnect();
+
+	/**
+	 * Splits the filter across multiple stream connections.
+	 */
+	private Sharding sharding = new Sharding();
+
+	/**
+	 * Drops the tweets received more than once, for example after a reconnect or over overlapping shard filters.
+	 */
+	private Deduplication deduplication = new Deduplication();
+
+	/**
+	 * Drops the tweets not matching the local filter criteria before they are serialized and sent to the binder.
+	 */
+	private Prefilter prefilter = new Prefilter();
+
+	/**
+	 * Limits the emitted tweets to a selected set of fields.
+	 */
+	private Projection projection = new Projection();
+
 	public Filter getFilter() {
 		return filter;
 	}
 
+	public Sharding getSharding() {
+		return sharding;
+	}
+
+	public Projection getProjection() {
+		return projection;
+	}
+
+	public Prefilter getPrefilter() {
+		return prefilter;
+	}
+
+	public Deduplication getDeduplication() {
+		return deduplication;
+	}
+
+	public Reconnect getReconnect() {
+		return reconnect;
+	}
+
+	public Overflow getOverflow() {
+		return overflow;
+	}
+
+	public Batch getBatch() {
+		return batch;
+	}
+
+	public boolean isRawPassThrough() {
+		return rawPassThrough;
+	}
+
+	public void setRawPassThrough(boolean rawPassThrough) {
+		this.rawPassThrough = rawPassThrough;
+	}
+
+	public boolean isComplianceEvents() {
+		return complianceEvents;
+	}
+
+	public void setComplianceEvents(boolean complianceEvents) {
+		this.complianceEvents = complianceEvents;
+	}
+
 	public StreamType getType() {
 		return type;
 	}
@@ -50,6 +152,335 @@ public class TwitterStreamSourceProperties {
 		this.type = type;
 	}
 
+	public static class Overflow {
+
+		public enum Strategy {unbounded, dropOldest, dropLatest, block}
+
+		/**
+		 * What to do when the buffer is full. One of unbounded (no limit), dropOldest, dropLatest or block
+		 * (block the stream listener until space is available).
+		 */
+		private Strategy strategy = Strategy.unbounded;
+
+		/**
+		 * Maximum number of tweets held in the buffer, including the one handed over to the output binding. At least
+		 * 2. Not applicable for the unbounded strategy.
+		 */
+		@Min(2)
+		private int capacity = 10000;
+
+		public Strategy getStrategy() {
+			return strategy;
+		}
+
+		public void setStrategy(Strategy strategy) {
+			this.strategy = strategy;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public void setCapacity(int capacity) {
+			this.capacity = capacity;
+		}
+	}
+
+	public static class Projection {
+
+		/**
+		 * Tweet fields to emit, as dot separated paths (e.g. id, text, user.screen_name, entities.hashtags.text).
+		 * The raw JSON uses the Twitter API field names, the Status JSON the Twitter4J property names (e.g.
+		 * user.screenName). All fields are emitted when not set.
+		 */
+		private List<String> fields;
+
+		public List<String> getFields() {
+			return fields;
+		}
+
+		public void setFields(List<String> fields) {
+			this.fields = fields;
+		}
+	}
+
+	public static class Prefilter {
+
+		/**
+		 * Minimum number of followers the tweet author must have.
+		 */
+		@PositiveOrZero
+		private int minFollowers = 0;
+
+		/**
+		 * Keep only the tweets with attached media (photos, videos ...).
+		 */
+		private boolean hasMedia = false;
+
+		/**
+		 * Drop the retweets.
+		 */
+		private boolean excludeRetweets = false;
+
+		/**
+		 * Regular expression the tweet text must contain a match for. The full_text of the tweet is used if present,
+		 * otherwise its text. The extended_tweet part of the compatibility mode tweets is not considered.
+		 */
+		private String textPattern;
+
+		/**
+		 * Keep only the tweets in one of these languages (BCP 47 codes as detected by Twitter, e.g. en, de).
+		 */
+		private List<String> languages;
+
+		public boolean isEnabled() {
+			return this.minFollowers > 0 || this.hasMedia || this.excludeRetweets
+					|| StringUtils.hasText(this.textPattern) || !CollectionUtils.isEmpty(this.languages);
+		}
+
+		public int getMinFollowers() {
+			return minFollowers;
+		}
+
+		public void setMinFollowers(int minFollowers) {
+			this.minFollowers = minFollowers;
+		}
+
+		public boolean isHasMedia() {
+			return hasMedia;
+		}
+
+		public void setHasMedia(boolean hasMedia) {
+			this.hasMedia = hasMedia;
+		}
+
+		public boolean isExcludeRetweets() {
+			return excludeRetweets;
+		}
+
+		public void setExcludeRetweets(boolean excludeRetweets) {
+			this.excludeRetweets = excludeRetweets;
+		}
+
+		public String getTextPattern() {
+			return textPattern;
+		}
+
+		public void setTextPattern(String textPattern) {
+			this.textPattern = textPattern;
+		}
+
+		public List<String> getLanguages() {
+			return languages;
+		}
+
+		public void setLanguages(List<String> languages) {
+			this.languages = languages;
+		}
+	}
+
+	public static class Deduplication {
+
+		/**
+		 * Drop the tweets with already seen status IDs. Always enabled when the stream is sharded.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Number of most recent status IDs remembered. Rounded up to the next power of two.
+		 */
+		@Positive
+		private int capacity = 131072;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public void setCapacity(int capacity) {
+			this.capacity = capacity;
+		}
+	}
+
+	public static class Sharding {
+
+		/**
+		 * Additional Twitter credentials, one per extra stream connection. When set, the filter's track, follow and
+		 * locations entries are split between the default twitter.connection and these connections. The tweets
+		 * received over all connections are merged and de-duplicated. Applicable for the filter stream type only.
+		 */
+		private List<TwitterConnectionProperties> connections = new ArrayList<>();
+
+		public List<TwitterConnectionProperties> getConnections() {
+			return connections;
+		}
+
+		public void setConnections(List<TwitterConnectionProperties> connections) {
+			this.connections = connections;
+		}
+
+		public boolean isEnabled() {
+			return !CollectionUtils.isEmpty(this.connections);
+		}
+	}
+
+	public static class Reconnect {
+
+		/**
+		 * Reconnect the stream on failure. When disabled the stream errors terminate the source.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Delay, in milliseconds, before the first reconnect attempt.
+		 */
+		@Positive
+		private long initialBackoff = 5000;
+
+		/**
+		 * Maximum delay, in milliseconds, between two reconnect attempts.
+		 */
+		@Positive
+		private long maxBackoff = 320000;
+
+		/**
+		 * Factor the delay is multiplied by after every consecutive failure.
+		 */
+		@DecimalMin("1.0")
+		private double multiplier = 2.0;
+
+		/**
+		 * Random variation, as a fraction of the delay (0.0 - 1.0), applied to spread the reconnect attempts.
+		 */
+		@DecimalMin("0.0")
+		@DecimalMax("1.0")
+		private double jitter = 0.5;
+
+		/**
+		 * Number of consecutive failures after which the circuit is opened.
+		 */
+		@Positive
+		private int circuitBreakerThreshold = 10;
+
+		/**
+		 * Time, in milliseconds, to wait before attempting to reconnect once the circuit is open.
+		 */
+		@Positive
+		private long circuitBreakerTimeout = 900000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getInitialBackoff() {
+			return initialBackoff;
+		}
+
+		public void setInitialBackoff(long initialBackoff) {
+			this.initialBackoff = initialBackoff;
+		}
+
+		public long getMaxBackoff() {
+			return maxBackoff;
+		}
+
+		public void setMaxBackoff(long maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		public double getMultiplier() {
+			return multiplier;
+		}
+
+		public void setMultiplier(double multiplier) {
+			this.multiplier = multiplier;
+		}
+
+		public double getJitter() {
+			return jitter;
+		}
+
+		public void setJitter(double jitter) {
+			this.jitter = jitter;
+		}
+
+		public int getCircuitBreakerThreshold() {
+			return circuitBreakerThreshold;
+		}
+
+		public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+			this.circuitBreakerThreshold = circuitBreakerThreshold;
+		}
+
+		public long getCircuitBreakerTimeout() {
+			return circuitBreakerTimeout;
+		}
+
+		public void setCircuitBreakerTimeout(long circuitBreakerTimeout) {
+			this.circuitBreakerTimeout = circuitBreakerTimeout;
+		}
+	}
+
+	public static class Batch {
+
+		public enum Format {json, ndjson}
+
+		/**
+		 * Maximum number of tweets grouped in a single message. Batching is disabled for sizes less than 2.
+		 */
+		private int size = 0;
+
+		/**
+		 * Maximum time, in milliseconds, to wait for a batch to fill up before emitting what was collected so far.
+		 */
+		@Positive
+		private long timeout = 1000;
+
+		/**
+		 * Batch payload format: json (a JSON array of tweets) or ndjson (newline delimited tweets).
+		 */
+		private Format format = Format.json;
+
+		public int getSize() {
+			return size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+
+		public long getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(long timeout) {
+			this.timeout = timeout;
+		}
+
+		public Format getFormat() {
+			return format;
+		}
+
+		public void setFormat(Format format) {
+			this.format = format;
+		}
+
+		public boolean isEnabled() {
+			return this.size > 1;
+		}
+	}
+
 	public static class Filter {
 
 		public enum FilterLevel {all, none, low, medium}
@@ -233,6 +664,52 @@ public class TwitterStreamSourceProperties {
 			return filterQuery;
 		}
 
+		/**
+		 * Splits the track, follow and locations entries, round-robin, into up to shardCount filter queries.
+		 * The count, language and filter level are copied to every shard. Shards that would have nothing to track,
+		 * follow or locate are omitted. A filter with no track, follow or locations entries (e.g. language only) can
+		 * not be split and is kept whole on a single shard.
+		 * @throws IllegalStateException if the filter is not set.
+		 */
+		public List<FilterQuery> toFilterQueries(int shardCount) {
+
+			List<FilterQuery> shardQueries = new ArrayList<>();
+
+			for (int shard = 0; shard < shardCount; shard++) {
+				Filter shardFilter = new Filter();
+				shardFilter.count = this.count;
+				shardFilter.language = this.language;
+				shardFilter.filterLevel = this.filterLevel;
+				shardFilter.track = shardOf(this.track, shard, shardCount);
+				shardFilter.follow = shardOf(this.follow, shard, shardCount);
+				shardFilter.locations = shardOf(this.locations, shard, shardCount);
+
+				if (!CollectionUtils.isEmpty(shardFilter.track) || !CollectionUtils.isEmpty(shardFilter.follow)
+						|| !CollectionUtils.isEmpty(shardFilter.locations)) {
+					shardQueries.add(shardFilter.toFilterQuery());
+				}
+			}
+
+			if (shardQueries.isEmpty()) {
+				if (!this.isValid()) {
+					throw new IllegalStateException("Filter is not property set");
+				}
+				shardQueries.add(this.toFilterQuery());
+			}
+
+			return shardQueries;
+		}
+
+		private static <T> List<T> shardOf(List<T> entries, int shard, int shardCount) {
+			List<T> shardEntries = new ArrayList<>();
+			if (entries != null) {
+				for (int i = shard; i < entries.size(); i = i + shardCount) {
+					shardEntries.add(entries.get(i));
+				}
+			}
+			return shardEntries;
+		}
+
 		public boolean isValid() {
 			return count > 0 || !CollectionUtils.isEmpty(this.track) || !CollectionUtils.isEmpty(this.follow)
 					|| !CollectionUtils.isEmpty(this.language) || this.filterLevel != FilterLevel.all;
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class StreamEventTypeTests {
+
+	@Test
+	public void testOf() {
+		assertThat(StreamEventType.of("{\"created_at\":\"Thu Dec 20 13:56:10 +0000 2018\",\"id\":1}"),
+				is(StreamEventType.status));
+		assertThat(StreamEventType.of("{\"delete\":{\"status\":{\"id\":1,\"user_id\":2}}}"),
+				is(StreamEventType.delete));
+		assertThat(StreamEventType.of("{\"scrub_geo\":{\"user_id\":2,\"up_to_status_id\":1}}"),
+				is(StreamEventType.scrub_geo));
+		assertThat(StreamEventType.of("{\"limit\":{\"track\":5}}"), is(StreamEventType.limit));
+		assertThat(StreamEventType.of("{\"status_withheld\":{\"id\":1}}"), is(StreamEventType.other));
+		assertThat(StreamEventType.of(""), is(StreamEventType.other));
+		assertThat(StreamEventType.of("not json"), is(StreamEventType.other));
+	}
+
+	@Test
+	public void testOfStatusInAnyFieldOrder() {
+		assertThat(StreamEventType.of(" \n{\"created_at\":\"Thu Dec 20 13:56:10 +0000 2018\","
+				+ "\"id\":1,\"text\":\"a\"}"), is(StreamEventType.status));
+		assertThat(StreamEventType.of("{\"id_str\":\"1\",\"user\":{\"id\":2,\"text\":\"b\"},\"full_text\":\"a\"}"),
+				is(StreamEventType.status));
+		assertThat(StreamEventType.of("{ \"text\" : \"a\", \"id\" : 1 }"), is(StreamEventType.status));
+	}
+
+	@Test
+	public void testOfOtherNotices() {
+		assertThat(StreamEventType.of("{\"warning\":{\"code\":\"FALLING_BEHIND\",\"percent_full\":60}}"),
+				is(StreamEventType.other));
+		assertThat(StreamEventType.of("{\"disconnect\":{\"code\":4,\"stream_name\":\"a\",\"reason\":\"b\"}}"),
+				is(StreamEventType.other));
+		assertThat(StreamEventType.of("{\"user_withheld\":{\"id\":1,\"withheld_in_countries\":[\"DE\"]}}"),
+				is(StreamEventType.other));
+		assertThat(StreamEventType.of(" {\"delete\":{\"status\":{\"id\":1,\"user_id\":2}}}"),
+				is(StreamEventType.delete));
+	}
+
+	@Test
+	public void testComplianceEvents() {
+		assertThat(StreamEventType.status.isComplianceEvent(), is(false));
+		assertThat(StreamEventType.limit.isComplianceEvent(), is(false));
+		assertThat(StreamEventType.delete.isComplianceEvent(), is(true));
+		assertThat(StreamEventType.scrub_geo.isComplianceEvent(), is(true));
+		assertThat(StreamEventType.other.isComplianceEvent(), is(false));
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class StreamOverflowBufferTests {
+
+	private static final int CAPACITY = 10;
+
+	private static final int TWEETS = CAPACITY + 34;
+
+	@Test
+	public void testUnbounded() {
+		StreamOverflowBuffer buffer = buffer(TwitterStreamSourceProperties.Overflow.Strategy.unbounded);
+		Flux<Integer> tweets = Flux.range(0, TWEETS);
+
+		assertThat(buffer.apply(tweets), sameInstance(tweets));
+		assertThat(buffer.acquire(), is(true));
+	}
+
+	@Test
+	public void testDropLatest() throws InterruptedException {
+		StreamOverflowBuffer buffer = buffer(TwitterStreamSourceProperties.Overflow.Strategy.dropLatest);
+
+		List<Integer> received = drainStalled(buffer);
+
+		// The capacity is the bound, including the tweet prefetched by the output thread, the rest is dropped.
+		assertThat(received, is(range(0, CAPACITY)));
+		assertThat(buffer.getDroppedCount(), is(34L));
+		assertThat(buffer.getBufferedCount(), is(0));
+	}
+
+	@Test
+	public void testDropOldest() throws InterruptedException {
+		StreamOverflowBuffer buffer = buffer(TwitterStreamSourceProperties.Overflow.Strategy.dropOldest);
+
+		List<Integer> received = drainStalled(buffer);
+
+		// The tweet prefetched by the output thread and the latest ones
+		List<Integer> expected = range(0, 1);
+		expected.addAll(range(TWEETS - CAPACITY + 1, TWEETS));
+		assertThat(received, is(expected));
+		assertThat(buffer.getDroppedCount(), is(34L));
+		assertThat(buffer.getBufferedCount(), is(0));
+	}
+
+	@Test
+	public void testBlock() throws InterruptedException {
+		StreamOverflowBuffer buffer = buffer(TwitterStreamSourceProperties.Overflow.Strategy.block);
+
+		for (int i = 0; i < CAPACITY; i++) {
+			assertThat(buffer.acquire(), is(true));
+		}
+
+		AtomicBoolean acquired = new AtomicBoolean(true);
+		Thread listener = new Thread(() -> acquired.set(buffer.acquire()));
+		listener.start();
+		listener.join(200);
+		assertThat(listener.isAlive(), is(true));
+
+		listener.interrupt();
+		listener.join(5000);
+		assertThat(acquired.get(), is(false));
+		assertThat(buffer.getDroppedCount(), is(0L));
+	}
+
+	@Test
+	public void testBlockReleasesPermits() throws InterruptedException {
+		StreamOverflowBuffer buffer = buffer(TwitterStreamSourceProperties.Overflow.Strategy.block);
+
+		Flux<Integer> tweets = Flux.create(emitter -> {
+			for (int i = 0; i < TWEETS; i++) {
+				if (buffer.acquire()) {
+					emitter.next(i);
+				}
+			}
+			emitter.complete();
+		});
+
+		List<Integer> received = buffer.apply(tweets).collectList().block();
+
+		assertThat(received, is(range(0, TWEETS)));
+		assertThat(buffer.getBufferedCount(), is(0));
+	}
+
+	@Test
+	public void testBlockReleasesPermitsOnCancel() throws Exception {
+		StreamOverflowBuffer buffer = buffer(TwitterStreamSourceProperties.Overflow.Strategy.block);
+
+		// Acquires a permit per tweet, as the stream listener does. Blocks the subscribing thread if none left.
+		Flux<Integer> tweets = buffer.apply(Flux.range(0, CAPACITY).doOnNext(tweet -> buffer.acquire()));
+
+		// All the permits are taken by the tweets buffered for a stalled subscriber, which then cancels
+		BaseSubscriber<Integer> stalled = new BaseSubscriber<Integer>() {
+
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+			}
+		};
+		tweets.subscribe(stalled);
+		assertThat(buffer.getBufferedCount(), is(CAPACITY));
+		stalled.dispose();
+
+		// The permits of the tweets discarded with the cancelled subscription are available again
+		List<Integer> resubscribed = CompletableFuture.supplyAsync(() -> tweets.collectList()
+				.block(Duration.ofSeconds(5))).get(5, TimeUnit.SECONDS);
+		assertThat(resubscribed, is(range(0, CAPACITY)));
+		assertThat(buffer.getBufferedCount(), is(0));
+	}
+
+	/**
+	 * Emits all tweets while the subscriber requests nothing, then drains what was kept.
+	 */
+	private List<Integer> drainStalled(StreamOverflowBuffer buffer) throws InterruptedException {
+		List<Integer> received = new CopyOnWriteArrayList<>();
+		CountDownLatch completed = new CountDownLatch(1);
+
+		BaseSubscriber<Integer> subscriber = new BaseSubscriber<Integer>() {
+
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				// Stalled binder
+			}
+
+			@Override
+			protected void hookOnNext(Integer tweet) {
+				received.add(tweet);
+			}
+
+			@Override
+			protected void hookOnComplete() {
+				completed.countDown();
+			}
+		};
+
+		buffer.apply(Flux.range(0, TWEETS)).subscribe(subscriber);
+		subscriber.request(Long.MAX_VALUE);
+
+		assertThat(completed.await(5, TimeUnit.SECONDS), is(true));
+		return received;
+	}
+
+	private StreamOverflowBuffer buffer(TwitterStreamSourceProperties.Overflow.Strategy strategy) {
+		TwitterStreamSourceProperties.Overflow overflow = new TwitterStreamSourceProperties.Overflow();
+		overflow.setStrategy(strategy);
+		overflow.setCapacity(CAPACITY);
+		return new StreamOverflowBuffer(overflow);
+	}
+
+	private static List<Integer> range(int from, int to) {
+		return IntStream.range(from, to).boxed().collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class StreamReconnectSupervisorTests {
+
+	@Test
+	public void testExponentialBackoff() {
+		TwitterStreamSourceProperties.Reconnect reconnect = new TwitterStreamSourceProperties.Reconnect();
+		reconnect.setInitialBackoff(100);
+		reconnect.setMaxBackoff(1000);
+		reconnect.setMultiplier(2);
+		reconnect.setJitter(0);
+
+		StreamReconnectSupervisor supervisor = new StreamReconnectSupervisor(reconnect);
+
+		assertThat(supervisor.nextDelay().toMillis(), is(100L));
+		assertThat(supervisor.nextDelay().toMillis(), is(200L));
+		assertThat(supervisor.nextDelay().toMillis(), is(400L));
+		assertThat(supervisor.nextDelay().toMillis(), is(800L));
+		assertThat(supervisor.nextDelay().toMillis(), is(1000L));
+		assertThat(supervisor.getConsecutiveFailures(), is(5));
+	}
+
+	@Test
+	public void testCircuitBreaker() {
+		TwitterStreamSourceProperties.Reconnect reconnect = new TwitterStreamSourceProperties.Reconnect();
+		reconnect.setInitialBackoff(100);
+		reconnect.setJitter(0);
+		reconnect.setCircuitBreakerThreshold(2);
+		reconnect.setCircuitBreakerTimeout(60000);
+
+		StreamReconnectSupervisor supervisor = new StreamReconnectSupervisor(reconnect);
+
+		assertThat(supervisor.nextDelay().toMillis(), is(100L));
+		assertThat(supervisor.nextDelay().toMillis(), is(200L));
+		assertThat(supervisor.nextDelay().toMillis(), is(60000L));
+		assertThat(supervisor.nextDelay().toMillis(), is(60000L));
+	}
+
+	@Test
+	public void testShardsBackOffIndependently() {
+		TwitterStreamSourceProperties.Reconnect reconnect = new TwitterStreamSourceProperties.Reconnect();
+		reconnect.setInitialBackoff(100);
+		reconnect.setMultiplier(2);
+		reconnect.setJitter(0);
+
+		StreamReconnectSupervisor supervisor = new StreamReconnectSupervisor(reconnect);
+		StreamReconnectSupervisor shard0 = supervisor.forShard(0);
+		StreamReconnectSupervisor shard1 = supervisor.forShard(1);
+
+		assertThat(shard0.nextDelay().toMillis(), is(100L));
+		assertThat(shard0.nextDelay().toMillis(), is(200L));
+		assertThat(shard1.nextDelay().toMillis(), is(100L));
+
+		assertThat(shard0.getConsecutiveFailures(), is(2));
+		assertThat(shard1.getConsecutiveFailures(), is(1));
+		assertThat(supervisor.getConsecutiveFailures(), is(0));
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class StreamSourceMetricsTests {
+
+	@Test
+	public void testPendingCountsBatchedMessages() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		StreamSourceMetrics metrics = metrics(registry);
+
+		for (int i = 0; i < 5; i++) {
+			metrics.emitted(StreamEventType.status, 100);
+		}
+		assertThat(registry.get("twitter.stream.pending").gauge().value(), is(5.0));
+
+		metrics.sent(3);
+		assertThat(registry.get("twitter.stream.pending").gauge().value(), is(2.0));
+
+		metrics.sent(1);
+		metrics.sent(1);
+		assertThat(registry.get("twitter.stream.pending").gauge().value(), is(0.0));
+		assertThat(registry.get("twitter.stream.messages").tag("type", "status").counter().count(), is(5.0));
+	}
+
+	@Test
+	public void testPendingExcludesDiscardedMessages() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		StreamSourceMetrics metrics = metrics(registry);
+
+		for (int i = 0; i < 5; i++) {
+			metrics.emitted(StreamEventType.status, 100);
+		}
+		metrics.sent(2);
+
+		// The output stream is cancelled with 3 messages still queued.
+		metrics.discarded();
+		assertThat(registry.get("twitter.stream.pending").gauge().value(), is(0.0));
+
+		metrics.emitted(StreamEventType.status, 100);
+		assertThat(registry.get("twitter.stream.pending").gauge().value(), is(1.0));
+	}
+
+	@Test
+	public void testTrackLimited() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		StreamSourceMetrics metrics = metrics(registry);
+
+		metrics.trackLimited(42);
+
+		assertThat(registry.get("twitter.stream.track.limitations").counter().count(), is(1.0));
+		assertThat(registry.get("twitter.stream.track.limited").gauge().value(), is(42.0));
+	}
+
+	private StreamSourceMetrics metrics(MeterRegistry registry) {
+		return new StreamSourceMetrics(registry,
+				new StreamOverflowBuffer(new TwitterStreamSourceProperties.Overflow()),
+				new StreamReconnectSupervisor(new TwitterStreamSourceProperties.Reconnect()),
+				new TweetDeduplicator(false, 16), new TweetPrefilter(new TwitterStreamSourceProperties.Prefilter()));
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class TweetBatchingTests {
+
+	@Test
+	public void testDisabled() {
+		Flux<Message<byte[]>> tweets = Flux.just(status("{\"id\":1}"));
+
+		Flux<Message<byte[]>> batches = TwitterStreamSourceConfiguration
+				.batch(tweets, batch(0, TwitterStreamSourceProperties.Batch.Format.json));
+
+		assertThat(batches, sameInstance(tweets));
+	}
+
+	@Test
+	public void testJsonBatches() {
+		Flux<Message<byte[]>> tweets = Flux.just(status("{\"id\":1}"), status("{\"id\":2}"), status("{\"id\":3}"),
+				status("{\"id\":4}"));
+
+		List<Message<byte[]>> batches = TwitterStreamSourceConfiguration
+				.batch(tweets, batch(3, TwitterStreamSourceProperties.Batch.Format.json))
+				.collectList().block(Duration.ofSeconds(5));
+
+		assertThat(batches, hasSize(2));
+		assertThat(payload(batches.get(0)), is("[{\"id\":1},{\"id\":2},{\"id\":3}]"));
+		assertThat(batches.get(0).getHeaders().get(TwitterStreamSourceConfiguration.BATCH_SIZE_HEADER), is(3));
+		assertThat(batches.get(0).getHeaders().get(MessageHeaders.CONTENT_TYPE),
+				is(MimeTypeUtils.APPLICATION_JSON_VALUE));
+		assertThat(payload(batches.get(1)), is("[{\"id\":4}]"));
+		assertThat(batches.get(1).getHeaders().get(TwitterStreamSourceConfiguration.BATCH_SIZE_HEADER), is(1));
+	}
+
+	@Test
+	public void testNdjsonBatches() {
+		Flux<Message<byte[]>> tweets = Flux.just(status("{\"id\":1}"), status("{\"id\":2}"));
+
+		List<Message<byte[]>> batches = TwitterStreamSourceConfiguration
+				.batch(tweets, batch(2, TwitterStreamSourceProperties.Batch.Format.ndjson))
+				.collectList().block(Duration.ofSeconds(5));
+
+		assertThat(batches, hasSize(1));
+		assertThat(payload(batches.get(0)), is("{\"id\":1}\n{\"id\":2}\n"));
+		assertThat(batches.get(0).getHeaders().get(MessageHeaders.CONTENT_TYPE),
+				is(TwitterStreamSourceConfiguration.NDJSON_VALUE));
+	}
+
+	@Test
+	public void testTimeoutFlushAndEventPassThrough() {
+		// The stream stays open, so the last partial batch can only be flushed by the batch timeout.
+		Flux<Message<byte[]>> tweets = Flux.concat(
+				Flux.just(status("{\"id\":1}"), status("{\"id\":2}"), event("{\"delete\":{}}"), status("{\"id\":3}")),
+				Flux.never());
+
+		long start = System.currentTimeMillis();
+		List<Message<byte[]>> messages = TwitterStreamSourceConfiguration
+				.batch(tweets, batch(2, TwitterStreamSourceProperties.Batch.Format.json))
+				.take(3)
+				.collectList().block(Duration.ofSeconds(5));
+
+		assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(200L));
+		assertThat(messages, hasSize(3));
+		assertThat(messages.stream().map(this::payload).collect(Collectors.toList()),
+				containsInAnyOrder("[{\"id\":1},{\"id\":2}]", "{\"delete\":{}}", "[{\"id\":3}]"));
+	}
+
+	private TwitterStreamSourceProperties.Batch batch(int size, TwitterStreamSourceProperties.Batch.Format format) {
+		TwitterStreamSourceProperties.Batch batch = new TwitterStreamSourceProperties.Batch();
+		batch.setSize(size);
+		batch.setTimeout(200);
+		batch.setFormat(format);
+		return batch;
+	}
+
+	private Message<byte[]> status(String json) {
+		return message(json, StreamEventType.status);
+	}
+
+	private Message<byte[]> event(String json) {
+		return message(json, StreamEventType.delete);
+	}
+
+	private Message<byte[]> message(String json, StreamEventType eventType) {
+		return MessageBuilder.withPayload(json.getBytes(StandardCharsets.UTF_8))
+				.setHeader(StreamEventType.HEADER, eventType.name())
+				.build();
+	}
+
+	private String payload(Message<byte[]> message) {
+		return new String(message.getPayload(), StandardCharsets.UTF_8);
+	}
+}
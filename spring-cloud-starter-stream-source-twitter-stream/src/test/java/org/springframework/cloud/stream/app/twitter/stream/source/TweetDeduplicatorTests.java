@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class TweetDeduplicatorTests {
+
+	@Test
+	public void testDuplicates() {
+		TweetDeduplicator deduplicator = new TweetDeduplicator(true, 1024);
+
+		assertThat(deduplicator.isDuplicate(1051126412069601280L), is(false));
+		assertThat(deduplicator.isDuplicate(1051126412069601281L), is(false));
+		assertThat(deduplicator.isDuplicate(1051126412069601280L), is(true));
+
+		assertThat(deduplicator.getHitCount(), is(1L));
+		assertThat(deduplicator.getMissCount(), is(2L));
+	}
+
+	@Test
+	public void testBoundedCapacity() {
+		TweetDeduplicator deduplicator = new TweetDeduplicator(true, 16);
+
+		for (long id = 1; id <= 1000; id++) {
+			assertThat(deduplicator.isDuplicate(id), is(false));
+		}
+		// The most recent ID is always retained.
+		assertThat(deduplicator.isDuplicate(1000), is(true));
+	}
+
+	@Test
+	public void testDisabled() {
+		TweetDeduplicator deduplicator = new TweetDeduplicator(false, 1024);
+
+		assertThat(deduplicator.isDuplicate(666L), is(false));
+		assertThat(deduplicator.isDuplicate(666L), is(false));
+	}
+
+	@Test
+	public void testRawStatusId() {
+		assertThat(TweetDeduplicator.statusId("{\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\",\"id\":1051126412069601280,"
+				+ "\"id_str\":\"1051126412069601280\"}"), is(1051126412069601280L));
+		assertThat(TweetDeduplicator.statusId("{\"delete\":{\"status\":{\"id\":1051126412069601280}}}"), is(-1L));
+	}
+
+	@Test
+	public void testRawStatusIdIgnoresFieldOrderAndNestedIds() {
+		assertThat(TweetDeduplicator.statusId("{\"user\":{\"id\":666,\"id_str\":\"666\"},"
+				+ "\"retweeted_status\":{\"id_str\":\"777\"},\"text\":\"\\\"id\\\":1\","
+				+ "\"id_str\":\"1051126412069601280\",\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\"}"),
+				is(1051126412069601280L));
+		assertThat(TweetDeduplicator.statusId("{\"limit\":{\"track\":5}}"), is(-1L));
+		assertThat(TweetDeduplicator.statusId("not json"), is(-1L));
+	}
+}
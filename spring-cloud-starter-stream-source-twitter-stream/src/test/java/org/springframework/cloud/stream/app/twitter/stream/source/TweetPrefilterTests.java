@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import twitter4j.MediaEntity;
+import twitter4j.Status;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Christian Tzolov
+ */
+public class TweetPrefilterTests {
+
+	private static final String TWEET = "{\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\",\"id\":1051126412069601280,"
+			+ "\"text\":\"Spring Cloud Stream rocks\",\"user\":{\"id\":42,\"name\":\"john\",\"followers_count\":150,"
+			+ "\"entities\":{\"url\":{\"urls\":[]}}},\"entities\":{\"hashtags\":[],\"media\":[{\"id\":7,"
+			+ "\"type\":\"photo\"}]},\"lang\":\"en\"}";
+
+	private static final String RETWEET = "{\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\","
+			+ "\"id\":1051126412069601281,\"text\":\"RT Spring\",\"retweeted_status\":{\"id\":1051126412069601280},"
+			+ "\"user\":{\"followers_count\":5},\"entities\":{\"media\":[]},\"lang\":\"de\"}";
+
+	@Test
+	public void testRawJsonFilter() {
+		TwitterStreamSourceProperties.Prefilter properties = new TwitterStreamSourceProperties.Prefilter();
+		properties.setMinFollowers(100);
+		properties.setHasMedia(true);
+		properties.setExcludeRetweets(true);
+		properties.setTextPattern("(?i)spring");
+		properties.setLanguages(Arrays.asList("en", "fr"));
+
+		TweetPrefilter prefilter = new TweetPrefilter(properties);
+
+		assertThat(prefilter.test(TWEET), is(true));
+		assertThat(prefilter.test(RETWEET), is(false));
+		assertThat(prefilter.test("{\"delete\":{\"status\":{\"id\":1051126412069601280}}}"), is(true));
+		assertThat(prefilter.getFilteredCount(), is(1L));
+	}
+
+	@Test
+	public void testSingleCriteria() {
+		TwitterStreamSourceProperties.Prefilter properties = new TwitterStreamSourceProperties.Prefilter();
+		properties.setMinFollowers(200);
+		assertThat(new TweetPrefilter(properties).test(TWEET), is(false));
+
+		properties = new TwitterStreamSourceProperties.Prefilter();
+		properties.setTextPattern("kafka");
+		assertThat(new TweetPrefilter(properties).test(TWEET), is(false));
+
+		properties = new TwitterStreamSourceProperties.Prefilter();
+		properties.setHasMedia(true);
+		assertThat(new TweetPrefilter(properties).test(RETWEET), is(false));
+	}
+
+	@Test
+	public void testSameTextInBothModes() {
+		TwitterStreamSourceProperties.Prefilter properties = new TwitterStreamSourceProperties.Prefilter();
+		properties.setTextPattern("kafka");
+		TweetPrefilter prefilter = new TweetPrefilter(properties);
+
+		// Compatibility mode tweet: the text is truncated, the extended_tweet part is not considered.
+		String truncated = "{\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\",\"id\":1,"
+				+ "\"text\":\"Spring Cloud Stream and…\",\"truncated\":true,"
+				+ "\"extended_tweet\":{\"full_text\":\"Spring Cloud Stream and kafka\"}}";
+		assertThat(prefilter.test(truncated), is(false));
+		assertThat(prefilter.test(status("Spring Cloud Stream and…")), is(false));
+
+		// Extended mode tweet: the full_text is used.
+		String extended = "{\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\",\"id\":2,"
+				+ "\"full_text\":\"Spring Cloud Stream and kafka\"}";
+		assertThat(prefilter.test(extended), is(true));
+		assertThat(prefilter.test(status("Spring Cloud Stream and kafka")), is(true));
+	}
+
+	@Test
+	public void testMissingLanguageAndUser() {
+		String anonymous = "{\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\",\"id\":3,\"text\":\"Spring\"}";
+
+		TwitterStreamSourceProperties.Prefilter properties = new TwitterStreamSourceProperties.Prefilter();
+		properties.setLanguages(Arrays.asList("en", "fr"));
+		TweetPrefilter prefilter = new TweetPrefilter(properties);
+		assertThat(prefilter.test(anonymous), is(false));
+		assertThat(prefilter.test(status("Spring")), is(false));
+
+		properties = new TwitterStreamSourceProperties.Prefilter();
+		properties.setMinFollowers(1);
+		prefilter = new TweetPrefilter(properties);
+		assertThat(prefilter.test(anonymous), is(false));
+		assertThat(prefilter.test(status("Spring")), is(false));
+		assertThat(prefilter.getFilteredCount(), is(2L));
+	}
+
+	private Status status(String text) {
+		Status status = mock(Status.class);
+		when(status.getText()).thenReturn(text);
+		when(status.getMediaEntities()).thenReturn(new MediaEntity[0]);
+		return status;
+	}
+
+	@Test
+	public void testDisabled() {
+		TweetPrefilter prefilter = new TweetPrefilter(new TwitterStreamSourceProperties.Prefilter());
+		assertThat(prefilter.test(RETWEET), is(true));
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class TweetProjectionTests {
+
+	private static final String TWEET = "{\"created_at\":\"Sat Oct 13 15:04:05 +0000 2018\",\"id\":1051126412069601280,"
+			+ "\"text\":\"Spring Cloud Stream rocks\",\"user\":{\"id\":42,\"screen_name\":\"john\",\"name\":\"John\"},"
+			+ "\"entities\":{\"hashtags\":[{\"text\":\"spring\",\"indices\":[1,7]},{\"text\":\"cloud\","
+			+ "\"indices\":[8,13]}],\"urls\":[]},\"place\":{\"id\":\"7\",\"name\":\"Amsterdam\"}}";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	public void testRawJsonProjection() throws IOException {
+		TweetProjection projection = new TweetProjection(
+				Arrays.asList("id", "user.screen_name", "entities.hashtags.text", " place "));
+
+		assertThat(projection.isEnabled(), is(true));
+		assertThat(new String(projection.write(this.objectMapper.getFactory(), TWEET), StandardCharsets.UTF_8),
+				is("{\"id\":1051126412069601280,\"user\":{\"screen_name\":\"john\"},"
+						+ "\"entities\":{\"hashtags\":[{\"text\":\"spring\"},{\"text\":\"cloud\"}]},"
+						+ "\"place\":{\"id\":\"7\",\"name\":\"Amsterdam\"}}"));
+	}
+
+	@Test
+	public void testObjectProjection() throws IOException {
+		Map<String, Object> user = new LinkedHashMap<>();
+		user.put("id", 42);
+		user.put("screenName", "john");
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("id", 1);
+		status.put("text", "Spring Cloud Stream rocks");
+		status.put("user", user);
+
+		TweetProjection projection = new TweetProjection(Arrays.asList("text", "user.screenName"));
+
+		assertThat(new String(projection.write(this.objectMapper, status), StandardCharsets.UTF_8),
+				is("{\"text\":\"Spring Cloud Stream rocks\",\"user\":{\"screenName\":\"john\"}}"));
+	}
+
+	@Test
+	public void testDisabled() {
+		assertThat(new TweetProjection(null).isEnabled(), is(false));
+		assertThat(new TweetProjection(Collections.emptyList()).isEnabled(), is(false));
+	}
+}
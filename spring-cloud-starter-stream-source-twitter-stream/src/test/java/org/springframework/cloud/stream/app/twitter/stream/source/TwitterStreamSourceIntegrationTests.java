@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.stream.app.twitter.stream.source;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -41,10 +42,16 @@ import org.springframework.cloud.stream.test.binder.MessageCollector;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
 import static org.mockserver.matchers.Times.exactly;
 import static org.mockserver.model.HttpRequest.request;
 import static org.mockserver.model.HttpResponse.response;
@@ -69,12 +76,19 @@ public abstract class TwitterStreamSourceIntegrationTests {
 
 	private static final Integer MOCK_SERVER_PORT = 1080;
 
+	private static final String DELETE_AND_STATUS =
+			TwitterTestUtils.asString("classpath:/response/stream_test_delete.json")
+					+ TwitterTestUtils.asString("classpath:/response/stream_test_1.json");
+
 	private static ClientAndServer mockServer;
 
 	private static MockServerClient mockClient;
 	private static HttpRequest streamFilterRequest;
 	private static HttpRequest streamSampleRequest;
 	private static HttpRequest streamFirehoseRequest;
+	private static HttpRequest streamRawFilterRequest;
+	private static HttpRequest streamEventsFilterRequest;
+	private static HttpRequest streamRawEventsFilterRequest;
 
 
 	@Autowired
@@ -103,6 +117,21 @@ public abstract class TwitterStreamSourceIntegrationTests {
 				.withMethod("POST")
 				.withPath("/stream/statuses/firehose.json")
 				.withBody(new StringBody("count=0&stall_warnings=true")));
+
+		streamRawFilterRequest = mockClientRecordRequest(request()
+				.withMethod("POST")
+				.withPath("/stream/statuses/filter.json")
+				.withBody(new StringBody("count=0&track=Raw&stall_warnings=true")), 0);
+
+		streamEventsFilterRequest = mockClientRecordRequest(request()
+				.withMethod("POST")
+				.withPath("/stream/statuses/filter.json")
+				.withBody(new StringBody("count=0&track=Events&stall_warnings=true")), 0, DELETE_AND_STATUS);
+
+		streamRawEventsFilterRequest = mockClientRecordRequest(request()
+				.withMethod("POST")
+				.withPath("/stream/statuses/filter.json")
+				.withBody(new StringBody("count=0&track=RawEvents&stall_warnings=true")), 0, DELETE_AND_STATUS);
 	}
 
 	@AfterClass
@@ -148,8 +177,88 @@ public abstract class TwitterStreamSourceIntegrationTests {
 		}
 	}
 
+	@TestPropertySource(properties = {
+			"twitter.stream.type=filter",
+			"twitter.stream.filter.track=Raw",
+			"twitter.stream.rawPassThrough=true"
+	})
+	public static class TwitterStreamRawPassThroughTests extends TwitterStreamSourceIntegrationTests {
+
+		@Test
+		@SuppressWarnings("unchecked")
+		public void testOne() throws InterruptedException {
+			Message<byte[]> received = (Message<byte[]>) messageCollector.forChannel(this.channels.output())
+					.poll(10, TimeUnit.SECONDS);
+			mockClient.verify(streamRawFilterRequest, once());
+
+			assertThat(received, notNullValue());
+			assertThat(new String(received.getPayload(), StandardCharsets.UTF_8),
+					is(TwitterTestUtils.asString("classpath:/response/stream_test_1.json").trim()));
+			assertThat(received.getHeaders().get(MessageHeaders.CONTENT_TYPE).toString(),
+					is(MimeTypeUtils.APPLICATION_JSON_VALUE));
+		}
+	}
+
+	@TestPropertySource(properties = {
+			"twitter.stream.type=filter",
+			"twitter.stream.filter.track=Events",
+			"twitter.stream.complianceEvents=true"
+	})
+	public static class TwitterStreamComplianceEventsTests extends TwitterStreamSourceIntegrationTests {
+
+		@Test
+		@SuppressWarnings("unchecked")
+		public void testOne() throws InterruptedException {
+			Message<byte[]> deletion = (Message<byte[]>) messageCollector.forChannel(this.channels.output())
+					.poll(10, TimeUnit.SECONDS);
+			Message<byte[]> status = (Message<byte[]>) messageCollector.forChannel(this.channels.output())
+					.poll(10, TimeUnit.SECONDS);
+			mockClient.verify(streamEventsFilterRequest, once());
+
+			assertThat(deletion, notNullValue());
+			assertThat(deletion.getHeaders().get(StreamEventType.HEADER), is(StreamEventType.delete.name()));
+			assertThat(new String(deletion.getPayload(), StandardCharsets.UTF_8),
+					is("{\"delete\":{\"status\":{\"id\":1075751718749659136,\"id_str\":\"1075751718749659136\","
+							+ "\"user_id\":859252650512072704,\"user_id_str\":\"859252650512072704\"}}}"));
+
+			assertThat(status, notNullValue());
+			assertThat(status.getHeaders().get(StreamEventType.HEADER), is(StreamEventType.status.name()));
+		}
+	}
+
+	@TestPropertySource(properties = {
+			"twitter.stream.type=filter",
+			"twitter.stream.filter.track=RawEvents",
+			"twitter.stream.rawPassThrough=true",
+			"twitter.stream.complianceEvents=false"
+	})
+	public static class TwitterStreamRawComplianceEventsDisabledTests extends TwitterStreamSourceIntegrationTests {
+
+		@Test
+		@SuppressWarnings("unchecked")
+		public void testOne() throws InterruptedException {
+			Message<byte[]> received = (Message<byte[]>) messageCollector.forChannel(this.channels.output())
+					.poll(10, TimeUnit.SECONDS);
+			mockClient.verify(streamRawEventsFilterRequest, once());
+
+			// The deletion notice is dropped, the status that follows it is the first message.
+			assertThat(received, notNullValue());
+			assertThat(received.getHeaders().get(StreamEventType.HEADER), is(StreamEventType.status.name()));
+			assertThat(new String(received.getPayload(), StandardCharsets.UTF_8),
+					is(TwitterTestUtils.asString("classpath:/response/stream_test_1.json").trim()));
+		}
+	}
 
 	private static HttpRequest mockClientRecordRequest(HttpRequest request) {
+		return mockClientRecordRequest(request, 10);
+	}
+
+	private static HttpRequest mockClientRecordRequest(HttpRequest request, long delaySeconds) {
+		return mockClientRecordRequest(request, delaySeconds,
+				TwitterTestUtils.asString("classpath:/response/stream_test_1.json"));
+	}
+
+	private static HttpRequest mockClientRecordRequest(HttpRequest request, long delaySeconds, String body) {
 		mockClient.when(request,/*unlimited())*/ exactly(1))
 				.respond(
 						response()
@@ -157,8 +266,8 @@ public abstract class TwitterStreamSourceIntegrationTests {
 								.withHeaders(
 										new Header("Content-Type", "application/json; charset=utf-8"),
 										new Header("Cache-Control", "public, max-age=86400"))
-								.withBody(TwitterTestUtils.asString("classpath:/response/stream_test_1.json"))
-								.withDelay(TimeUnit.SECONDS, 10));
+								.withBody(body)
+								.withDelay(TimeUnit.SECONDS, delaySeconds));
 		return request;
 	}
 
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.stream.app.twitter.stream.source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import twitter4j.FilterQuery;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Christian Tzolov
+ */
+public class TwitterStreamSourcePropertiesTests {
+
+	@Test
+	public void testFilterSharding() {
+		TwitterStreamSourceProperties.Filter filter = new TwitterStreamSourceProperties.Filter();
+		filter.setTrack(Arrays.asList("java", "python", "go"));
+		filter.setLanguage(Collections.singletonList("en"));
+
+		List<FilterQuery> shards = filter.toFilterQueries(2);
+
+		assertThat(shards, contains(
+				new FilterQuery().count(0).track("java,go").language("en"),
+				new FilterQuery().count(0).track("python").language("en")));
+	}
+
+	@Test
+	public void testLanguageOnlyFilterIsKeptOnOneShard() {
+		TwitterStreamSourceProperties.Filter filter = new TwitterStreamSourceProperties.Filter();
+		filter.setLanguage(Collections.singletonList("en"));
+
+		List<FilterQuery> shards = filter.toFilterQueries(3);
+
+		assertThat(shards, contains(new FilterQuery().count(0).language("en")));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnsetFilterFailsFast() {
+		new TwitterStreamSourceProperties.Filter().toFilterQueries(2);
+	}
+}